@@ -0,0 +1,129 @@
+package com.zosh.benchmark;
+
+import com.zosh.domain.BookingStatus;
+import com.zosh.modal.Booking;
+import com.zosh.modal.BookingDailyRollup;
+import com.zosh.repository.BookingRepository;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * Historiales de reservas sintéticos y reproducibles (semilla fija) para los benchmarks.
+ * Cada día tiene bookingsPerDay turnos consecutivos desde las 09:00; ~10 % CANCELLED.
+ */
+final class BenchmarkData {
+
+    static final long SALON_ID = 1L;
+    static final LocalTime OPEN = LocalTime.of(9, 0);
+    static final LocalTime CLOSE = LocalTime.of(21, 0);
+
+    private BenchmarkData() {
+    }
+
+    /** Primer día del historial: días futuros para que el índice no los descarte como pasados */
+    static LocalDate firstDay() {
+        return LocalDate.now().plusDays(1);
+    }
+
+    static List<Booking> bookings(int size, int bookingsPerDay) {
+        Random random = new Random(42);
+        LocalDate first = firstDay();
+        List<Booking> bookings = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            LocalDate day = first.plusDays(i / bookingsPerDay);
+            int slot = i % bookingsPerDay;
+            LocalDateTime start = day.atTime(OPEN).plusMinutes(30L * slot);
+            int minutes = 15 + 15 * random.nextInt(2);
+            BookingStatus status = random.nextInt(10) == 0
+                    ? BookingStatus.CANCELLED
+                    : random.nextBoolean() ? BookingStatus.CONFIRMED : BookingStatus.PENDING;
+
+            bookings.add(Booking.builder()
+                    .id((long) i + 1)
+                    .customerId(1L + random.nextInt(5_000))
+                    .salonId(SALON_ID)
+                    .startTime(start)
+                    .endTime(start.plusMinutes(minutes))
+                    .totalPrice(BigDecimal.valueOf(100 + random.nextInt(900), 0).setScale(2))
+                    .status(status)
+                    .serviceIds(Set.of(1L + random.nextInt(50), 51L + random.nextInt(50)))
+                    .build());
+        }
+        return bookings;
+    }
+
+    static int days(int size, int bookingsPerDay) {
+        return (size + bookingsPerDay - 1) / bookingsPerDay;
+    }
+
+    /** Lo mismo que guarda BookingRollupService.rebuild para el salón */
+    static List<BookingDailyRollup> rollups(List<Booking> bookings) {
+        Map<BookingDailyRollup.Key, BookingDailyRollup> rows = new LinkedHashMap<>();
+        for (Booking b : bookings) {
+            LocalDate day = b.getStartTime().toLocalDate();
+            BookingDailyRollup row = rows.computeIfAbsent(
+                    new BookingDailyRollup.Key(b.getSalonId(), day, b.getStatus()),
+                    k -> BookingDailyRollup.builder()
+                            .salonId(b.getSalonId())
+                            .day(day)
+                            .status(b.getStatus())
+                            .bookingCount(0L)
+                            .earnings(BigDecimal.ZERO)
+                            .build());
+            row.setBookingCount(row.getBookingCount() + 1);
+            row.setEarnings(row.getEarnings().add(b.getTotalPrice()));
+        }
+        return new ArrayList<>(rows.values());
+    }
+
+    /**
+     * BookingRepository en memoria: solo responde la carga por día que usa BookingSlotIndex
+     * (intervalos de las reservas activas del día pedido).
+     */
+    static BookingRepository dayRepository(List<Booking> bookings) {
+        Map<LocalDate, List<BookingRepository.SlotRow>> activeByDay = new HashMap<>();
+        for (Booking b : bookings) {
+            if (b.getStatus() != BookingStatus.CANCELLED) {
+                activeByDay.computeIfAbsent(b.getStartTime().toLocalDate(), d -> new ArrayList<>())
+                        .add(new SlotRow(b.getId(), b.getStartTime(), b.getEndTime()));
+            }
+        }
+
+        return (BookingRepository) Proxy.newProxyInstance(
+                BookingRepository.class.getClassLoader(),
+                new Class<?>[] { BookingRepository.class },
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findActiveBySalonIdAndStartTimeRange")) {
+                        LocalDateTime from = (LocalDateTime) args[1];
+                        return activeByDay.getOrDefault(from.toLocalDate(), List.of());
+                    }
+                    if (method.getDeclaringClass() == Object.class) {
+                        return method.invoke(activeByDay, args);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private record SlotRow(Long id, LocalDateTime start, LocalDateTime end) implements BookingRepository.SlotRow {
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public LocalDateTime getStartTime() {
+            return start;
+        }
+
+        @Override
+        public LocalDateTime getEndTime() {
+            return end;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.zosh.benchmark;
+
+import com.zosh.mapper.BookingMapper;
+import com.zosh.modal.Booking;
+import com.zosh.payload.dto.SalonDTO;
+import com.zosh.payload.dto.ServiceOfferingDTO;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BookingMapper.toDTO sobre listas grandes, con los servicios resueltos desde un mapa
+ * por ID como hace BookingEnricher (sin llamadas remotas).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookingMapperBenchmark {
+
+    @Param({ "1000", "100000" })
+    private int listSize;
+
+    private List<Booking> bookings;
+    private Map<Long, ServiceOfferingDTO> services;
+    private SalonDTO salon;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        bookings = BenchmarkData.bookings(listSize, 20);
+
+        services = new HashMap<>();
+        for (long id = 1; id <= 100; id++) {
+            ServiceOfferingDTO service = new ServiceOfferingDTO();
+            service.setId(id);
+            service.setName("Servicio " + id);
+            service.setPrice(100 + (int) id);
+            service.setDuration(15);
+            service.setSalon(BenchmarkData.SALON_ID);
+            services.put(id, service);
+        }
+
+        salon = new SalonDTO();
+        salon.setId(BenchmarkData.SALON_ID);
+        salon.setName("Salón benchmark");
+        salon.setOpenTime(BenchmarkData.OPEN);
+        salon.setCloseTime(BenchmarkData.CLOSE);
+    }
+
+    @Benchmark
+    public void toDTO(Blackhole blackhole) {
+        for (Booking booking : bookings) {
+            blackhole.consume(BookingMapper.toDTO(booking, null, salon, null));
+        }
+    }
+
+    @Benchmark
+    public void toDTOWithServices(Blackhole blackhole) {
+        for (Booking booking : bookings) {
+            Set<ServiceOfferingDTO> bookingServices = new HashSet<>();
+            for (Long serviceId : booking.getServiceIds()) {
+                ServiceOfferingDTO service = services.get(serviceId);
+                if (service != null) {
+                    bookingServices.add(service);
+                }
+            }
+            blackhole.consume(BookingMapper.toDTO(booking, bookingServices, salon, null));
+        }
+    }
+}
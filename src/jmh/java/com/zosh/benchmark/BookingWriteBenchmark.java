@@ -0,0 +1,104 @@
+package com.zosh.benchmark;
+
+import com.zosh.modal.Booking;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Alta de reservas (bookings + booking_service_ids) con Hibernate sobre H2 en memoria,
+ * variando el incremento de bookings_seq (1 = un nextval por fila, 50 = bloques pooled)
+ * y hibernate.jdbc.batch_size (1 = sin lotes). Con la misma configuración que application.yml:
+ * order_inserts / order_updates e increment_size_mismatch_strategy=fix.
+ *
+ * H2 no tiene latencia de red: la diferencia contra Oracle es mayor que la que se mide acá.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@OperationsPerInvocation(BookingWriteBenchmark.ROWS)
+public class BookingWriteBenchmark {
+
+    static final int ROWS = 500;
+
+    @Param({ "1", "50" })
+    private int sequenceIncrement;
+
+    @Param({ "1", "50" })
+    private int batchSize;
+
+    private SessionFactory sessionFactory;
+    private List<Booking> template;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        String url = "jdbc:h2:mem:bookings_" + sequenceIncrement + "_" + batchSize + ";DB_CLOSE_DELAY=-1";
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+                Statement statement = connection.createStatement()) {
+            // secuencia creada antes que Hibernate: "update" no la toca y "fix" adopta su incremento
+            statement.execute("create sequence bookings_seq start with 1 increment by " + sequenceIncrement);
+        }
+
+        sessionFactory = new Configuration()
+                .addAnnotatedClass(Booking.class)
+                .setProperty("hibernate.connection.url", url)
+                .setProperty("hibernate.connection.username", "sa")
+                .setProperty("hibernate.connection.password", "")
+                .setProperty("hibernate.hbm2ddl.auto", "update")
+                .setProperty("hibernate.id.sequence.increment_size_mismatch_strategy", "fix")
+                .setProperty("hibernate.jdbc.batch_size", String.valueOf(batchSize))
+                .setProperty("hibernate.order_inserts", "true")
+                .setProperty("hibernate.order_updates", "true")
+                .buildSessionFactory();
+
+        template = BenchmarkData.bookings(ROWS, 20);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    /** Vacía las tablas entre iteraciones para que el tamaño de la base no cambie la medición */
+    @TearDown(Level.Iteration)
+    public void truncate() {
+        sessionFactory.inTransaction(session -> {
+            session.createNativeMutationQuery("delete from booking_service_ids").executeUpdate();
+            session.createNativeMutationQuery("delete from bookings").executeUpdate();
+        });
+    }
+
+    @Benchmark
+    public int insertBookings() {
+        return sessionFactory.fromTransaction(session -> {
+            for (Booking source : template) {
+                session.persist(copy(source));
+            }
+            session.flush();
+            return ROWS;
+        });
+    }
+
+    private static Booking copy(Booking source) {
+        return Booking.builder()
+                .customerId(source.getCustomerId())
+                .salonId(source.getSalonId())
+                .startTime(source.getStartTime())
+                .endTime(source.getEndTime())
+                .totalPrice(source.getTotalPrice())
+                .status(source.getStatus())
+                .serviceIds(new HashSet<>(source.getServiceIds()))
+                .build();
+    }
+}
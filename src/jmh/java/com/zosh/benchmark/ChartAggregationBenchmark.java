@@ -0,0 +1,62 @@
+package com.zosh.benchmark;
+
+import com.zosh.domain.ChartGranularity;
+import com.zosh.modal.Booking;
+import com.zosh.modal.BookingDailyRollup;
+import com.zosh.service.impl.BookingChartService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Armado de las gráficas de BookingChartService.
+ *
+ *   *FromBookings  agrupación sobre todas las reservas del salón (versión original)
+ *   *FromRollups   agrupación sobre booking_daily_rollups del mismo historial
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChartAggregationBenchmark {
+
+    @Param({ "1000", "100000" })
+    private int historySize;
+
+    @Param({ "DAILY", "MONTHLY" })
+    private ChartGranularity granularity;
+
+    private final BookingChartService chartService = new BookingChartService();
+    private List<Booking> bookings;
+    private List<BookingDailyRollup> rollups;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        bookings = BenchmarkData.bookings(historySize, 20);
+        rollups = BenchmarkData.rollups(bookings);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> earningsFromBookings() {
+        return chartService.generateEarningsChartData(bookings);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> countFromBookings() {
+        return chartService.generateBookingCountChartData(bookings);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> earningsFromRollups() {
+        return chartService.generateEarningsChartData(rollups, granularity);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> countFromRollups() {
+        return chartService.generateBookingCountChartData(rollups, granularity);
+    }
+}
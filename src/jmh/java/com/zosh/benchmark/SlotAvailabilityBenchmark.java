@@ -0,0 +1,89 @@
+package com.zosh.benchmark;
+
+import com.zosh.modal.Booking;
+import com.zosh.service.impl.BookingSlotIndex;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verificación de disponibilidad de BookingServiceImpl.isTimeSlotAvailable.
+ *
+ *   indexed     BookingSlotIndex.hasConflict con los días ya cargados (caso estable)
+ *   linearScan  recorrido de todo el historial del salón, como hacía la versión original
+ *
+ * Los probes son turnos aleatorios dentro del horario del salón en cualquier día del historial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = { "-Xms2g", "-Xmx2g" })
+public class SlotAvailabilityBenchmark {
+
+    private static final int PROBES = 1024;
+
+    @Param({ "100", "10000", "1000000" })
+    private int historySize;
+
+    @Param({ "20" })
+    private int bookingsPerDay;
+
+    private List<Booking> history;
+    private BookingSlotIndex index;
+    private LocalDateTime[] probeStarts;
+    private LocalDateTime[] probeEnds;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        history = BenchmarkData.bookings(historySize, bookingsPerDay);
+        index = new BookingSlotIndex(BenchmarkData.dayRepository(history));
+        ReflectionTestUtils.setField(index, "ttlMinutes", 24 * 60L);
+
+        int days = BenchmarkData.days(historySize, bookingsPerDay);
+        LocalDate first = BenchmarkData.firstDay();
+        Random random = new Random(7);
+        probeStarts = new LocalDateTime[PROBES];
+        probeEnds = new LocalDateTime[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            LocalDateTime start = first.plusDays(random.nextInt(days))
+                    .atTime(BenchmarkData.OPEN)
+                    .plusMinutes(15L * random.nextInt(40));
+            probeStarts[i] = start;
+            probeEnds[i] = start.plusMinutes(30L + 15L * random.nextInt(4));
+        }
+
+        // días cargados antes de medir: se mide la consulta, no la lectura de la BD
+        for (int i = 0; i < PROBES; i++) {
+            index.hasConflict(BenchmarkData.SALON_ID, probeStarts[i], probeEnds[i]);
+        }
+    }
+
+    @Benchmark
+    public boolean indexed() {
+        int i = next++ & (PROBES - 1);
+        return index.hasConflict(BenchmarkData.SALON_ID, probeStarts[i], probeEnds[i]);
+    }
+
+    @Benchmark
+    public boolean linearScan() {
+        int i = next++ & (PROBES - 1);
+        LocalDateTime start = probeStarts[i];
+        LocalDateTime end = probeEnds[i];
+        for (Booking existing : history) {
+            boolean overlap = start.isBefore(existing.getEndTime()) && end.isAfter(existing.getStartTime());
+            boolean exactMatch = start.isEqual(existing.getStartTime()) || end.isEqual(existing.getEndTime());
+            if (overlap || exactMatch) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,49 @@
+package com.zosh.configrations;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Pool acotado para las llamadas remotas (Feign) que se lanzan en paralelo.
+ * Si el pool y su cola se llenan la tarea se rechaza y el checkout falla enseguida:
+ * ejecutarla en el hilo del request lo dejaría bloqueado fuera del timeout del lookup.
+ */
+@Configuration
+public class AsyncConfig {
+
+    @Bean(name = "remoteCallExecutor")
+    public ThreadPoolTaskExecutor remoteCallExecutor(
+            @Value("${booking.remote-calls.pool-size:16}") int poolSize,
+            @Value("${booking.remote-calls.queue-capacity:64}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("remote-call-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Pool de las llamadas hedged (RemoteCallGuard). Sin cola de respaldo en el llamador:
+     * si está lleno se rechaza y la llamada se hace sin hedging en el hilo actual.
+     */
+    @Bean(name = "hedgeExecutor")
+    public ThreadPoolTaskExecutor hedgeExecutor(
+            @Value("${booking.resilience.hedge.pool-size:16}") int poolSize) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("hedged-call-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
@@ -1,9 +1,13 @@
 package com.zosh.configrations;
 
+import com.zosh.messaging.PaymentLinkWorker;
 import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.config.RetryInterceptorBuilder;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -32,6 +36,71 @@ public class RabbitConfig {
         return rabbitTemplate;
     }
 
+    // =========================================================================
+    // LISTENER CONTAINERS
+    // =========================================================================
+
+    /**
+     * Consumo por lotes de booking-queue: cada consumidor junta hasta batchSize mensajes
+     * (o lo que llegue en receiveTimeout) y el listener los procesa en una transacción.
+     * Ack manual: BookingEventConsumer confirma el lote completo o, si falló, cada mensaje
+     * por separado; solo los que siguen fallando van a la DLQ (booking.dlx).
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory bookingBatchListenerFactory(
+            ConnectionFactory connectionFactory,
+            Jackson2JsonMessageConverter jackson2JsonMessageConverter,
+            @Value("${booking.messaging.batch-size:50}") int batchSize,
+            @Value("${booking.messaging.prefetch:100}") int prefetch,
+            @Value("${booking.messaging.concurrency:2}") int concurrency,
+            @Value("${booking.messaging.max-concurrency:8}") int maxConcurrency,
+            @Value("${booking.messaging.receive-timeout-ms:200}") long receiveTimeoutMs) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setMessageConverter(jackson2JsonMessageConverter);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setPrefetchCount(Math.max(prefetch, batchSize));
+        factory.setConcurrentConsumers(concurrency);
+        factory.setMaxConcurrentConsumers(Math.max(maxConcurrency, concurrency));
+        factory.setReceiveTimeout(receiveTimeoutMs);
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        factory.setDefaultRequeueRejected(false);
+        return factory;
+    }
+
+    /**
+     * payment-queue (links de pago del checkout asíncrono): un mensaje por consumidor a la vez.
+     * Si el servicio de pagos no está disponible se reintenta con backoff exponencial; agotados
+     * los intentos PaymentLinkWorker marca el link FAILED y el mensaje va a la DLQ (payment.dlx).
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory paymentLinkListenerFactory(
+            ConnectionFactory connectionFactory,
+            Jackson2JsonMessageConverter jackson2JsonMessageConverter,
+            PaymentLinkWorker paymentLinkWorker,
+            @Value("${booking.payment-link.concurrency:2}") int concurrency,
+            @Value("${booking.payment-link.max-concurrency:8}") int maxConcurrency,
+            @Value("${booking.payment-link.max-attempts:4}") int maxAttempts,
+            @Value("${booking.payment-link.initial-interval-ms:1000}") long initialIntervalMs,
+            @Value("${booking.payment-link.max-interval-ms:15000}") long maxIntervalMs) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setMessageConverter(jackson2JsonMessageConverter);
+        factory.setPrefetchCount(1);
+        factory.setConcurrentConsumers(concurrency);
+        factory.setMaxConcurrentConsumers(Math.max(maxConcurrency, concurrency));
+        factory.setAcknowledgeMode(AcknowledgeMode.AUTO);
+        factory.setDefaultRequeueRejected(false);
+        factory.setAdviceChain(RetryInterceptorBuilder.stateless()
+                .maxAttempts(maxAttempts)
+                .backOffOptions(initialIntervalMs, 2.0, maxIntervalMs)
+                .recoverer(paymentLinkWorker)
+                .build());
+        return factory;
+    }
+
     // =========================================================================
     // EXCHANGES
     // =========================================================================
@@ -0,0 +1,52 @@
+package com.zosh.configrations;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.util.List;
+
+/**
+ * Formatos de respuesta negociados por Accept:
+ *   application/json                          BookingDTO con salón y servicios embebidos
+ *   application/vnd.booking.normalized+json   reservas + tablas de salones y servicios sin repetir
+ *   application/cbor, application/x-jackson-smile   binario para llamadas entre servicios
+ *
+ * Los conversores binarios usan la misma configuración de Jackson que el JSON (fechas, módulos).
+ * La compresión gzip la hace Tomcat (server.compression).
+ */
+@Configuration
+public class WebContentConfig {
+
+    public static final String NORMALIZED_JSON_VALUE = "application/vnd.booking.normalized+json";
+    public static final MediaType NORMALIZED_JSON = MediaType.parseMediaType(NORMALIZED_JSON_VALUE);
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    /** true si el cliente pidió explícitamente el formato normalizado */
+    public static boolean acceptsNormalized(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return false;
+        }
+        try {
+            List<MediaType> accepted = MediaType.parseMediaTypes(accept);
+            return accepted.stream().anyMatch(type -> type.getQualityValue() > 0
+                    && type.isConcrete() && NORMALIZED_JSON.isCompatibleWith(type));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
@@ -1,45 +1,93 @@
 package com.zosh.controller;
 
+import com.zosh.configrations.WebContentConfig;
 import com.zosh.domain.BookingStatus;
+import com.zosh.domain.PaymentLinkStatus;
 import com.zosh.domain.PaymentMethod;
 import com.zosh.exception.UserException;
 import com.zosh.mapper.BookingMapper;
 import com.zosh.modal.*;
 import com.zosh.payload.dto.*;
+import com.zosh.payload.request.BookingCursor;
+import com.zosh.payload.request.BookingPageRequest;
 import com.zosh.payload.request.BookingRequest;
+import com.zosh.payload.request.BulkBookingRequest;
+import com.zosh.payload.request.GroupPaymentRequest;
+import com.zosh.payload.response.BookingPageResponse;
+import com.zosh.payload.response.BulkBookingResponse;
+import com.zosh.payload.response.NormalizedBookingsResponse;
 import com.zosh.payload.response.PaymentLinkResponse;
+import com.zosh.payload.response.PaymentLinkStatusResponse;
 import com.zosh.service.*;
+import com.zosh.service.impl.BookingEnricher;
+import com.zosh.service.impl.BookingLookupService;
+import com.zosh.service.clients.CachedLookupClient;
 import com.zosh.service.clients.PaymentFeignClient;
-import com.zosh.service.clients.SalonFeignClient;
-import com.zosh.service.clients.ServiceOfferingFeignClient;
+import com.zosh.service.clients.PaymentServiceCredentials;
+import com.zosh.service.clients.RemoteCallGuard;
 import com.zosh.service.clients.UserFeignClient;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.ws.rs.Path;
+import com.zosh.metrics.BookingMetrics;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+@Slf4j
 @RestController
 @RequestMapping("/api/bookings")
 @RequiredArgsConstructor
 public class BookingController {
 
         private final BookingService bookingService;
-        private final UserFeignClient userService;
-        private final SalonFeignClient salonService;
-        private final ServiceOfferingFeignClient serviceOfferingService;
         private final PaymentFeignClient paymentService;
         private final UserFeignClient userFeignClient;
+        private final BookingEnricher bookingEnricher;
+        private final BookingLookupService bookingLookupService;
+        private final CachedLookupClient lookupClient;
+        private final RemoteCallGuard guard;
+        private final PaymentServiceCredentials paymentCredentials;
+        private final ObjectMapper objectMapper;
+        private final BookingMetrics metrics;
+
+        /** Reservas enriquecidas y escritas por lote en /salon/stream */
+        @Value("${booking.export.batch-size:200}")
+        private int exportBatchSize;
+
+        @Value("${booking.slots.step-minutes:15}")
+        private int slotStepMinutes;
+
+        @Value("${booking.slots.max-range-days:31}")
+        private int maxSlotRangeDays;
+
+        @Value("${booking.bulk.max-occurrences:52}")
+        private int maxBulkOccurrences;
+
+        @Value("${booking.payment-link.poll-after-seconds:2}")
+        private int paymentLinkPollAfterSeconds;
 
         @PostMapping
         public ResponseEntity<PaymentLinkResponse> createBooking(
@@ -48,48 +96,178 @@ public class BookingController {
                         @RequestParam PaymentMethod paymentMethod,
                         @RequestBody BookingRequest bookingRequest) throws Exception {
 
-                UserDTO user = userService.getUserFromJwtToken(jwt).getBody();
+                // Usuario, salón y servicios en paralelo con un único timeout
+                BookingLookupService.CheckoutLookup lookup = bookingLookupService.fetch(
+                                jwt, salonId, bookingRequest.getServiceIds());
 
-                SalonDTO salon = salonService.getSalonById(salonId, jwt).getBody();
+                UserDTO user = lookup.user();
+                SalonDTO salon = lookup.salon();
 
-                if (salon.getId() == null) {
+                if (salon == null || salon.getId() == null) {
                         throw new Exception("Salon not found");
                 }
 
-                Set<ServiceOfferingDTO> services = serviceOfferingService
-                                .getServicesByIds(bookingRequest.getServiceIds()).getBody();
+                Set<ServiceOfferingDTO> services = lookup.services();
 
                 Booking createdBooking = bookingService.createBooking(
                                 bookingRequest,
                                 user,
                                 salon,
                                 services);
-                PaymentLinkResponse res = paymentService.createPaymentLink(
-                                jwt,
-                                createdBooking,
-                                paymentMethod).getBody();
+                PaymentLinkResponse res = guard.call(RemoteCallGuard.PAYMENT,
+                                () -> paymentService.createPaymentLink(jwt, createdBooking, paymentMethod).getBody());
 
                 return new ResponseEntity<>(res, HttpStatus.CREATED);
 
         }
 
+        /**
+         * Checkout asíncrono: guarda la reserva PENDING y responde 202 sin esperar al servicio
+         * de pagos. El link se pide en segundo plano (payment-queue) y se consulta en
+         * GET /api/bookings/{bookingId}/payment-link (header Location).
+         */
+        @PostMapping("/async")
+        public ResponseEntity<PaymentLinkStatusResponse> createBookingAsync(
+                        @RequestHeader("Authorization") String jwt,
+                        @RequestParam Long salonId,
+                        @RequestParam PaymentMethod paymentMethod,
+                        @RequestBody BookingRequest bookingRequest) throws Exception {
+
+                // sin credencial de servicio el worker no podría pedir el link: no se crea la reserva
+                if (!paymentCredentials.isConfigured()) {
+                        throw new Exception("Asynchronous checkout is not available, use POST /api/bookings");
+                }
+
+                BookingLookupService.CheckoutLookup lookup = bookingLookupService.fetch(
+                                jwt, salonId, bookingRequest.getServiceIds());
+
+                SalonDTO salon = lookup.salon();
+                if (salon == null || salon.getId() == null) {
+                        throw new Exception("Salon not found");
+                }
+
+                Booking createdBooking = bookingService.createBookingWithDeferredPaymentLink(
+                                bookingRequest,
+                                lookup.user(),
+                                salon,
+                                lookup.services(),
+                                paymentMethod);
+
+                return ResponseEntity.accepted()
+                                .location(URI.create("/api/bookings/" + createdBooking.getId() + "/payment-link"))
+                                .header(HttpHeaders.RETRY_AFTER, String.valueOf(paymentLinkPollAfterSeconds))
+                                .body(toPaymentLinkStatus(createdBooking));
+        }
+
+        /**
+         * Estado del link de pago de un checkout asíncrono: 202 mientras se está creando,
+         * 200 con el link (CREATED) o con FAILED si el servicio de pagos lo rechazó.
+         */
+        @GetMapping("/{bookingId}/payment-link")
+        public ResponseEntity<PaymentLinkStatusResponse> getPaymentLink(
+                        @RequestHeader("Authorization") String jwt,
+                        @PathVariable Long bookingId) throws Exception {
+
+                UserDTO user = lookupClient.getUserFromJwtToken(jwt);
+                Booking booking = bookingService.getBookingById(bookingId);
+                if (booking == null || user == null || !booking.getCustomerId().equals(user.getId())) {
+                        throw new Exception("Booking not found");
+                }
+                if (booking.getPaymentLinkStatus() == null) {
+                        throw new Exception("Booking " + bookingId + " was not created with an asynchronous checkout");
+                }
+
+                PaymentLinkStatusResponse body = toPaymentLinkStatus(booking);
+                if (booking.getPaymentLinkStatus() == PaymentLinkStatus.REQUESTED) {
+                        return ResponseEntity.accepted()
+                                        .header(HttpHeaders.RETRY_AFTER, String.valueOf(paymentLinkPollAfterSeconds))
+                                        .body(body);
+                }
+                return ResponseEntity.ok(body);
+        }
+
+        private static PaymentLinkStatusResponse toPaymentLinkStatus(Booking booking) {
+                PaymentLinkResponse link = booking.getPaymentLinkStatus() == PaymentLinkStatus.CREATED
+                                ? new PaymentLinkResponse(booking.getPaymentLinkUrl(), booking.getPaymentLinkId())
+                                : null;
+                return new PaymentLinkStatusResponse(booking.getId(), booking.getPaymentLinkStatus(), link);
+        }
+
+        /**
+         * Alta masiva (multi-servicio o recurrente): un solo lookup de usuario, salón y
+         * servicios, una transacción para todas las ocurrencias y un único link de pago
+         * por el total del grupo (GroupPaymentRequest, identificado por groupId).
+         */
+        @PostMapping("/bulk")
+        public ResponseEntity<BulkBookingResponse> createBookings(
+                        @RequestHeader("Authorization") String jwt,
+                        @RequestParam Long salonId,
+                        @RequestParam PaymentMethod paymentMethod,
+                        @RequestBody BulkBookingRequest bulkRequest) throws Exception {
+
+                List<LocalDateTime> startTimes = bulkRequest.resolveStartTimes(maxBulkOccurrences);
+
+                BookingLookupService.CheckoutLookup lookup = bookingLookupService.fetch(
+                                jwt, salonId, bulkRequest.getServiceIds());
+
+                SalonDTO salon = lookup.salon();
+                if (salon == null || salon.getId() == null) {
+                        throw new Exception("Salon not found");
+                }
+
+                List<Booking> created = bookingService.createBookings(
+                                startTimes,
+                                lookup.user(),
+                                salon,
+                                lookup.services());
+
+                Long groupId = created.get(0).getGroupId();
+                List<Long> ids = created.stream().map(Booking::getId).toList();
+                BigDecimal total = created.stream()
+                                .map(Booking::getTotalPrice)
+                                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+                GroupPaymentRequest groupPayment = GroupPaymentRequest.builder()
+                                .groupId(groupId)
+                                .customerId(lookup.user().getId())
+                                .salonId(salon.getId())
+                                .bookingIds(ids)
+                                .totalPrice(total)
+                                .startTime(created.get(0).getStartTime())
+                                .endTime(created.get(created.size() - 1).getEndTime())
+                                .build();
+
+                PaymentLinkResponse res = guard.call(RemoteCallGuard.PAYMENT,
+                                () -> paymentService.createGroupPaymentLink(jwt, groupPayment, paymentMethod).getBody());
+
+                return new ResponseEntity<>(new BulkBookingResponse(groupId, ids, total, res),
+                                HttpStatus.CREATED);
+        }
+
+        /**
+         * Reservas del cliente. Con Accept: application/vnd.booking.normalized+json responde
+         * {@link NormalizedBookingsResponse} (salones y servicios una sola vez).
+         */
         @GetMapping("/customer")
-        public ResponseEntity<Map<String, Object>> getBookingsByCustomer(
+        public ResponseEntity<?> getBookingsByCustomer(
                         @RequestHeader("Authorization") String jwt,
+                        @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
                         @RequestHeader(value = "X-Cognito-Sub", required = false) String cognitoSub,
                         @RequestHeader(value = "X-User-Email", required = false) String userEmail,
                         @RequestHeader(value = "X-User-Username", required = false) String username,
                         @RequestHeader(value = "X-User-Role", required = false) String userRole,
-                        @RequestHeader(value = "X-Auth-Source", required = false) String authSource) throws Exception {
-
-                System.out.println("📅 BOOKING CONTROLLER - getBookingsByCustomer");
+                        @RequestHeader(value = "X-Auth-Source", required = false) String authSource,
+                        @RequestParam(defaultValue = "false") boolean includeArchive) throws Exception {
 
+                boolean normalized = WebContentConfig.acceptsNormalized(accept);
                 try {
-                        // 🚀 OBTENER USUARIO
-                        UserDTO user = userService.getUserFromJwtToken(jwt).getBody();
+                        UserDTO user = lookupClient.getUserFromJwtToken(jwt);
 
                         if (user == null) {
-                                System.out.println("❌ Usuario no encontrado");
+                                metrics.countRequest("customer", "user_not_found");
+                                if (normalized) {
+                                        return emptyNormalized();
+                                }
                                 Map<String, Object> errorResponse = new HashMap<>();
                                 errorResponse.put("bookings", Collections.emptyList());
                                 errorResponse.put("totalBookings", 0);
@@ -97,28 +275,28 @@ public class BookingController {
                                 return ResponseEntity.ok(errorResponse);
                         }
 
-                        System.out.println("👤 Usuario: " + user.getEmail() + " (ID: " + user.getId() + ")");
-
-                        // 🚀 OBTENER BOOKINGS DEL CUSTOMER (NO DEL SALÓN)
-                        List<Booking> bookings = bookingService.getBookingsByCustomer(user.getId());
-
-                        System.out.println("📋 Bookings encontrados: " + bookings.size());
-
-                        // 🚀 CONVERTIR A DTO - PASAR JWT
+                        // 🚀 BOOKINGS DEL CUSTOMER (NO DEL SALÓN)
+                        List<Booking> bookings = bookingService.getBookingsByCustomer(user.getId(), includeArchive);
+                        if (normalized) {
+                                metrics.countRequest("customer", "ok");
+                                return normalized(bookings, jwt);
+                        }
                         Set<BookingDTO> bookingDTOs = getBookingDTOs(bookings, jwt);
 
-                        // 🚀 RESPUESTA CON ESTRUCTURA CORRECTA
                         Map<String, Object> response = new HashMap<>();
                         response.put("bookings", new ArrayList<>(bookingDTOs));
                         response.put("totalBookings", bookingDTOs.size());
 
-                        System.out.println("✅ Respuesta preparada con " + bookingDTOs.size() + " bookings");
-
+                        metrics.countRequest("customer", "ok");
+                        log.debug("Customer {}: {} bookings", user.getId(), bookingDTOs.size());
                         return ResponseEntity.ok(response);
 
                 } catch (Exception e) {
-                        System.err.println("❌ Error obteniendo bookings del customer: " + e.getMessage());
-                        e.printStackTrace();
+                        metrics.countRequest("customer", "error");
+                        log.warn("Error obteniendo bookings del customer: {}", e.getMessage(), e);
+                        if (normalized) {
+                                return emptyNormalized();
+                        }
 
                         Map<String, Object> errorResponse = new HashMap<>();
                         errorResponse.put("bookings", Collections.emptyList());
@@ -129,46 +307,110 @@ public class BookingController {
                 }
         }
 
+        /**
+         * Reservas del cliente paginadas por (startTime, id).
+         * Para la página siguiente se reenvía el nextCursor de la respuesta anterior.
+         */
+        @GetMapping("/customer/page")
+        public ResponseEntity<BookingPageResponse> getBookingsByCustomerPage(
+                        @RequestHeader("Authorization") String jwt,
+                        @RequestParam(required = false) String cursor,
+                        @RequestParam(defaultValue = "20") int size,
+                        @RequestParam(required = false) BookingStatus status,
+                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to)
+                        throws Exception {
+
+                UserDTO user = lookupClient.getUserFromJwtToken(jwt);
+                if (user == null) {
+                        throw new UserException("User not found");
+                }
+
+                BookingPageRequest page = pageRequest(cursor, size, status, from, to);
+                return ResponseEntity.ok(toPageResponse(
+                                bookingService.getBookingsByCustomer(user.getId(), page), jwt));
+        }
+
+        /** Reservas del salón del dueño paginadas por (startTime, id) */
+        @GetMapping("/salon/page")
+        public ResponseEntity<BookingPageResponse> getBookingsBySalonPage(
+                        @RequestHeader("Authorization") String jwt,
+                        @RequestParam(required = false) String cursor,
+                        @RequestParam(defaultValue = "20") int size,
+                        @RequestParam(required = false) BookingStatus status,
+                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to)
+                        throws Exception {
+
+                SalonDTO salon = lookupClient.getSalonByOwner(jwt);
+                if (salon == null || salon.getId() == null) {
+                        return ResponseEntity.ok(new BookingPageResponse(Collections.emptyList(), null, false, 0));
+                }
+
+                BookingPageRequest page = pageRequest(cursor, size, status, from, to);
+                return ResponseEntity.ok(toPageResponse(
+                                bookingService.getBookingsBySalon(salon.getId(), page), jwt));
+        }
+
+        private BookingPageRequest pageRequest(String cursor, int size, BookingStatus status,
+                        LocalDate from, LocalDate to) throws Exception {
+                BookingPageRequest page = new BookingPageRequest();
+                page.setAfter(BookingCursor.decode(cursor));
+                page.setSize(Math.min(Math.max(size, 1), BookingPageRequest.MAX_SIZE));
+                page.setStatus(status);
+                page.setFrom(from);
+                page.setTo(to);
+                return page;
+        }
+
+        private BookingPageResponse toPageResponse(Slice<Booking> slice, String jwt) {
+                List<Booking> bookings = slice.getContent();
+                String nextCursor = null;
+                if (slice.hasNext() && !bookings.isEmpty()) {
+                        Booking last = bookings.get(bookings.size() - 1);
+                        nextCursor = new BookingCursor(last.getStartTime(), last.getId()).encode();
+                }
+                return new BookingPageResponse(
+                                bookingEnricher.toDTOs(bookings, jwt),
+                                nextCursor,
+                                slice.hasNext(),
+                                bookings.size());
+        }
+
         @GetMapping("/report")
         public ResponseEntity<SalonReport> getSalonReport(
                         @RequestHeader("Authorization") String jwt) {
 
-                System.out.println("📊 BOOKING CONTROLLER - getSalonReport");
-
                 try {
-                        // 🚀 OBTENER USUARIO (método original)
-                        UserDTO user = userService.getUserFromJwtToken(jwt).getBody();
+                        UserDTO user = lookupClient.getUserFromJwtToken(jwt);
 
                         if (user == null) {
-                                System.out.println("❌ Usuario no encontrado");
+                                metrics.countRequest("report", "user_not_found");
                                 return createEmptyReportResponse();
                         }
 
-                        System.out.println("👤 Usuario encontrado: " + user.getEmail());
-
-                        // 🚀 OBTENER SALÓN (método original)
-                        SalonDTO salon = salonService.getSalonByOwner(jwt).getBody();
+                        SalonDTO salon = lookupClient.getSalonByOwner(jwt);
 
                         if (salon == null) {
-                                System.out.println("❌ Salón no encontrado");
+                                metrics.countRequest("report", "salon_not_found");
                                 return createEmptyReportResponse();
                         }
 
-                        System.out.println("🏪 Salón encontrado: " + salon.getName());
-
-                        // 🚀 GENERAR REPORTE
                         SalonReport report = bookingService.getSalonReport(salon.getId());
 
+                        metrics.countRequest("report", "ok");
                         return ResponseEntity.ok(report);
 
                 } catch (Exception e) {
-                        System.err.println("❌ Error obteniendo reporte: " + e.getMessage());
-
-                        // 🚀 MANEJAR ERRORES ESPECÍFICOS
-                        String errorMsg = e.getMessage().toLowerCase();
+                        // 404 / sin salón: el usuario no tiene salón, se responde reporte vacío
+                        String errorMsg = String.valueOf(e.getMessage()).toLowerCase();
                         if (errorMsg.contains("404") || errorMsg.contains("not found") ||
                                         errorMsg.contains("no salon") || errorMsg.contains("usuario no encontrado")) {
-                                System.out.println("ℹ️ Usuario no tiene salón - retornando reporte vacío");
+                                metrics.countRequest("report", "salon_not_found");
+                                log.debug("Usuario sin salón - reporte vacío");
+                        } else {
+                                metrics.countRequest("report", "error");
+                                log.warn("Error obteniendo reporte: {}", e.getMessage());
                         }
 
                         return createEmptyReportResponse();
@@ -186,131 +428,123 @@ public class BookingController {
         }
 
         // 🚀 TAMBIÉN ACTUALIZA EL MÉTODO /salon PARA CONSISTENCIA
+        /**
+         * Con includeArchive=true también devuelve las reservas archivadas (más lento).
+         * Con Accept: application/vnd.booking.normalized+json responde
+         * {@link NormalizedBookingsResponse} en lugar de repetir el salón en cada reserva.
+         */
         @GetMapping("/salon")
-        public ResponseEntity<Set<BookingDTO>> getBookingsBySalon(
-                        @RequestHeader("Authorization") String jwt) {
-
-                System.out.println("🔥 BOOKING CONTROLLER - getBookingsBySalon INICIADO");
-                System.out.println("   JWT recibido: " + (jwt != null ? "SÍ" : "NO"));
+        public ResponseEntity<?> getBookingsBySalon(
+                        @RequestHeader("Authorization") String jwt,
+                        @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                        @RequestParam(defaultValue = "false") boolean includeArchive) {
 
+                boolean normalized = WebContentConfig.acceptsNormalized(accept);
                 try {
-                        // 1. Obtener usuario del JWT
-                        System.out.println("📝 Paso 1: Obteniendo usuario del JWT...");
-                        UserDTO user = userService.getUserFromJwtToken(jwt).getBody();
+                        // 1. Usuario del JWT
+                        UserDTO user = lookupClient.getUserFromJwtToken(jwt);
 
                         if (user == null) {
-                                System.out.println("❌ Usuario no encontrado del JWT");
-                                return ResponseEntity.ok(java.util.Collections.emptySet());
+                                metrics.countRequest("salon", "user_not_found");
+                                return normalized ? emptyNormalized() : ResponseEntity.ok(java.util.Collections.emptySet());
                         }
 
-                        System.out.println("✅ Usuario encontrado:");
-                        System.out.println("   ID: " + user.getId());
-                        System.out.println("   Email: " + user.getEmail());
-
-                        // 2. Obtener salón del usuario
-                        System.out.println("📝 Paso 2: Obteniendo salón del usuario...");
-                        ResponseEntity<SalonDTO> salonResponse = salonService.getSalonByOwner(jwt);
-                        SalonDTO salon = salonResponse.getBody();
+                        // 2. Salón del usuario
+                        SalonDTO salon = lookupClient.getSalonByOwner(jwt);
 
                         if (salon == null) {
-                                System.out.println("❌ Salón no encontrado para el usuario");
-                                System.out.println("   Response status: " + salonResponse.getStatusCode());
-                                return ResponseEntity.ok(java.util.Collections.emptySet());
+                                metrics.countRequest("salon", "salon_not_found");
+                                return normalized ? emptyNormalized() : ResponseEntity.ok(java.util.Collections.emptySet());
                         }
 
-                        System.out.println("✅ Salón encontrado:");
-                        System.out.println("   Salon ID: " + salon.getId());
-                        System.out.println("   Salon Name: " + salon.getName());
-                        System.out.println("   Owner ID: " + salon.getOwnerId());
-
-                        // 3. Obtener bookings del salón
-                        System.out.println("📝 Paso 3: Obteniendo bookings del salón...");
-                        List<Booking> bookings = bookingService.getBookingsBySalon(salon.getId());
-
-                        System.out.println("✅ Bookings encontrados:");
-                        System.out.println("   Total bookings: " + bookings.size());
-
-                        if (bookings.isEmpty()) {
-                                System.out.println("⚠️  No hay bookings en la base de datos para salonId: "
-                                                + salon.getId());
-                        } else {
-                                System.out.println("📋 Detalles de bookings:");
-                                for (int i = 0; i < Math.min(bookings.size(), 3); i++) {
-                                        Booking b = bookings.get(i);
-                                        System.out.println("   Booking " + (i + 1) + ":");
-                                        System.out.println("     ID: " + b.getId());
-                                        System.out.println("     SalonId: " + b.getSalonId());
-                                        System.out.println("     CustomerId: " + b.getCustomerId());
-                                        System.out.println("     Status: " + b.getStatus());
-                                        System.out.println("     StartTime: " + b.getStartTime());
-                                        System.out.println("     Price: " + b.getTotalPrice());
-                                }
+                        // 3. Bookings del salón → DTOs
+                        List<Booking> bookings = bookingService.getBookingsBySalon(salon.getId(), includeArchive);
+                        if (normalized) {
+                                metrics.countRequest("salon", "ok");
+                                return normalized(bookings, jwt);
                         }
-
-                        // 4. Convertir a DTOs
-                        System.out.println("📝 Paso 4: Convirtiendo a DTOs...");
                         Set<BookingDTO> bookingDTOs = getBookingDTOs(bookings, jwt);
 
-                        System.out.println("✅ DTOs creados:");
-                        System.out.println("   Total DTOs: " + bookingDTOs.size());
-
+                        metrics.countRequest("salon", "ok");
+                        log.debug("Salon {}: {} bookings", salon.getId(), bookingDTOs.size());
                         return ResponseEntity.ok(bookingDTOs);
 
                 } catch (feign.FeignException.NotFound e) {
-                        System.out.println("❌ FeignException.NotFound: " + e.getMessage());
-                        System.out.println("   Probablemente el usuario no tiene salón registrado");
-                        return ResponseEntity.ok(java.util.Collections.emptySet());
+                        // el usuario no tiene salón registrado
+                        metrics.countRequest("salon", "salon_not_found");
+                        return normalized ? emptyNormalized() : ResponseEntity.ok(java.util.Collections.emptySet());
                 } catch (Exception e) {
-                        System.err.println("❌ Error general en getBookingsBySalon:");
-                        System.err.println("   Error type: " + e.getClass().getSimpleName());
-                        System.err.println("   Error message: " + e.getMessage());
-                        e.printStackTrace();
-                        return ResponseEntity.ok(java.util.Collections.emptySet());
+                        metrics.countRequest("salon", "error");
+                        log.warn("Error en getBookingsBySalon ({}): {}", e.getClass().getSimpleName(), e.getMessage(), e);
+                        return normalized ? emptyNormalized() : ResponseEntity.ok(java.util.Collections.emptySet());
                 }
         }
 
-       private Set<BookingDTO> getBookingDTOs(List<Booking> bookings, String jwt) {
-                System.out.println("🔄 Convirtiendo " + bookings.size() + " bookings a DTOs...");
-                
-                return bookings.stream()
-                        .map(booking -> {
-                                try {
-                                // Obtener servicios
-                                Set<ServiceOfferingDTO> services = serviceOfferingService
-                                        .getServicesByIds(booking.getServiceIds()).getBody();
-
-                                // Obtener salón
-                                SalonDTO salon = salonService.getSalonById(booking.getSalonId(), jwt).getBody();
-
-                                // Crear DTO SIN usuario (temporal para evitar error de BD)
-                                BookingDTO dto = BookingMapper.toDTO(booking, services, salon, null);
-                                
-                                System.out.println("✅ DTO creado para booking ID: " + booking.getId());
-                                return dto;
-                                
-                                } catch (Exception e) {
-                                System.err.println("❌ Error creando DTO para booking " + booking.getId() + ": " + e.getMessage());
-                                // Crear DTO mínimo
-                                BookingDTO dto = new BookingDTO();
-                                dto.setId(booking.getId());
-                                dto.setStatus(booking.getStatus());
-                                dto.setTotalPrice(booking.getTotalPrice());
-                                dto.setStartTime(booking.getStartTime());
-                                dto.setEndTime(booking.getEndTime());
-                                return dto;
-                                }
-                        })
-                        .collect(Collectors.toSet());
+        /**
+         * Exportación de todas las reservas del salón en NDJSON (un BookingDTO por línea).
+         * Se leen con un cursor, se enriquecen en lotes pequeños y se escriben a medida
+         * que se procesan, sin cargar el historial completo en memoria.
+         * Con includeArchive=true siguen las reservas archivadas.
+         */
+        @GetMapping(value = "/salon/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+        public ResponseEntity<StreamingResponseBody> streamBookingsBySalon(
+                        @RequestHeader("Authorization") String jwt,
+                        @RequestParam(defaultValue = "false") boolean includeArchive) throws Exception {
+
+                SalonDTO salon = lookupClient.getSalonByOwner(jwt);
+                if (salon == null || salon.getId() == null) {
+                        return ResponseEntity.ok(out -> {
+                        });
                 }
 
+                StreamingResponseBody body = out -> bookingService.streamBookingsBySalon(
+                                salon.getId(),
+                                includeArchive,
+                                exportBatchSize,
+                                batch -> {
+                                        try {
+                                                for (BookingDTO dto : bookingEnricher.toDTOs(batch, jwt)) {
+                                                        out.write(objectMapper.writeValueAsBytes(dto));
+                                                        out.write('\n');
+                                                }
+                                                out.flush();
+                                        } catch (IOException e) {
+                                                throw new UncheckedIOException(e);
+                                        }
+                                });
+
+                return ResponseEntity.ok()
+                                .contentType(MediaType.APPLICATION_NDJSON)
+                                .body(body);
+        }
+
+        private ResponseEntity<NormalizedBookingsResponse> normalized(List<Booking> bookings, String jwt) {
+                return ResponseEntity.ok()
+                                .contentType(WebContentConfig.NORMALIZED_JSON)
+                                .varyBy(HttpHeaders.ACCEPT)
+                                .body(bookingEnricher.toNormalized(bookings, jwt));
+        }
+
+        private ResponseEntity<NormalizedBookingsResponse> emptyNormalized() {
+                return normalized(Collections.emptyList(), null);
+        }
+
+        private Set<BookingDTO> getBookingDTOs(List<Booking> bookings, String jwt) {
+                // Servicios y salones se piden una vez para toda la lista, no por booking
+                return new LinkedHashSet<>(bookingEnricher.toDTOs(bookings, jwt));
+        }
+
         /**
          * Get a booking by its ID
          */
         @GetMapping("/{bookingId}")
         public ResponseEntity<BookingDTO> getBookingById(@PathVariable Long bookingId) {
                 Booking booking = bookingService.getBookingById(bookingId);
-                Set<ServiceOfferingDTO> offeringDTOS = serviceOfferingService
-                                .getServicesByIds(booking.getServiceIds()).getBody();
+                if (booking == null) {
+                        return ResponseEntity.notFound().build();
+                }
+                Set<ServiceOfferingDTO> offeringDTOS = lookupClient
+                                .getServicesByIds(booking.getServiceIds());
 
                 BookingDTO bookingDTO = BookingMapper.toDTO(booking,
                                 offeringDTOS, null, null);
@@ -330,12 +564,12 @@ public class BookingController {
 
                 Booking updatedBooking = bookingService.updateBookingStatus(bookingId, status);
 
-                Set<ServiceOfferingDTO> offeringDTOS = serviceOfferingService
-                                .getServicesByIds(updatedBooking.getServiceIds()).getBody();
+                Set<ServiceOfferingDTO> offeringDTOS = lookupClient
+                                .getServicesByIds(updatedBooking.getServiceIds());
 
                 SalonDTO salonDTO;
                 try {
-                        salonDTO = salonService.getSalonById(updatedBooking.getSalonId(), jwt).getBody(); // ✅ AHORA SÍ
+                        salonDTO = lookupClient.getSalonById(updatedBooking.getSalonId(), jwt); // ✅ AHORA SÍ
                                                                                                           // FUNCIONA
                 } catch (Exception e) {
                         throw new RuntimeException(e);
@@ -352,20 +586,54 @@ public class BookingController {
                         @PathVariable LocalDate date,
                         @RequestHeader("Authorization") String jwt) throws Exception {
 
-                List<Booking> bookings = bookingService.getBookingsByDate(date, salonId);
+                // Las canceladas ya no ocupan el slot (mismo criterio que la validación al reservar)
+                List<BookedSlotsDTO> slotsDTOS = bookingService.getBookedSlots(date, salonId,
+                                List.of(BookingStatus.PENDING, BookingStatus.CONFIRMED));
 
-                List<BookedSlotsDTO> slotsDTOS = bookings.stream()
-                                .map(booking -> {
-                                        BookedSlotsDTO slotDto = new BookedSlotsDTO();
+                return ResponseEntity.ok(slotsDTOS);
 
-                                        slotDto.setStartTime(booking.getStartTime());
-                                        slotDto.setEndTime(booking.getEndTime());
+        }
 
-                                        return slotDto;
-                                })
-                                .toList();
+        /**
+         * Horas de inicio libres del salón entre from y to (inclusive) para una duración total,
+         * enviada directamente (duration, en minutos) o calculada desde serviceIds.
+         */
+        @GetMapping("/slots/salon/{salonId}/available")
+        public ResponseEntity<List<AvailableSlotsDTO>> getAvailableSlots(
+                        @PathVariable Long salonId,
+                        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                        @RequestParam(required = false) Integer duration,
+                        @RequestParam(required = false) Set<Long> serviceIds,
+                        @RequestParam(required = false) Integer step,
+                        @RequestHeader("Authorization") String jwt) throws Exception {
 
-                return ResponseEntity.ok(slotsDTOS);
+                LocalDate end = to != null ? to : from;
+                if (end.isBefore(from) || end.isAfter(from.plusDays(maxSlotRangeDays - 1L))) {
+                        throw new Exception("Date range must be between 1 and " + maxSlotRangeDays + " days");
+                }
+
+                int totalDuration;
+                if (duration != null) {
+                        totalDuration = duration;
+                } else if (serviceIds != null && !serviceIds.isEmpty()) {
+                        totalDuration = lookupClient.getServicesByIds(serviceIds).stream()
+                                        .mapToInt(ServiceOfferingDTO::getDuration)
+                                        .sum();
+                } else {
+                        throw new Exception("duration or serviceIds is required");
+                }
+                if (totalDuration <= 0) {
+                        throw new Exception("Total service duration must be positive");
+                }
+
+                SalonDTO salon = lookupClient.getSalonById(salonId, jwt);
+                if (salon == null || salon.getOpenTime() == null || salon.getCloseTime() == null) {
+                        throw new Exception("Salon not found with id " + salonId);
+                }
 
+                int stepMinutes = step != null && step > 0 ? step : slotStepMinutes;
+                return ResponseEntity.ok(bookingService.getAvailableSlots(
+                                salon, from, end, totalDuration, stepMinutes));
         }
 }
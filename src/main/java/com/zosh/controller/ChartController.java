@@ -4,96 +4,119 @@
 // =============================================================================
 package com.zosh.controller;
 
-import com.zosh.modal.Booking;
+import com.zosh.domain.ChartGranularity;
+import com.zosh.metrics.BookingMetrics;
+import com.zosh.modal.BookingDailyRollup;
 import com.zosh.payload.dto.SalonDTO;
-import com.zosh.service.BookingService;
-import com.zosh.service.clients.SalonFeignClient;
+import com.zosh.service.clients.CachedLookupClient;
 import com.zosh.service.impl.BookingChartService;
+import com.zosh.service.impl.BookingRollupService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 import java.util.Collections;
 
+@Slf4j
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("/api/bookings/chart")
 public class ChartController {
 
     private final BookingChartService bookingChartService;
-    private final BookingService bookingService;
-    private final SalonFeignClient salonService;
+    private final BookingRollupService bookingRollupService;
+    private final CachedLookupClient lookupClient;
+    private final BookingMetrics metrics;
+
+    /** Ventana por defecto cuando no se envían from / to */
+    @Value("${booking.chart.default-days-back:365}")
+    private int defaultDaysBack;
+
+    @Value("${booking.chart.default-days-ahead:90}")
+    private int defaultDaysAhead;
 
     @GetMapping("/earnings")
     public ResponseEntity<List<Map<String, Object>>> getEarningsChartData(
-            @RequestHeader("Authorization") String jwt) {
-
-        System.out.println("📊 CHART CONTROLLER - EARNINGS REQUEST");
+            @RequestHeader("Authorization") String jwt,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "DAILY") ChartGranularity granularity) {
 
         try {
-            ResponseEntity<SalonDTO> salonResponse = salonService.getSalonByOwner(jwt);
-            SalonDTO salon = salonResponse.getBody();
+            SalonDTO salon = lookupClient.getSalonByOwner(jwt);
 
             if (salon == null) {
-                System.out.println("⚠️ Respuesta de salón es null");
+                metrics.countRequest("chart.earnings", "salon_not_found");
                 return ResponseEntity.ok(Collections.emptyList());
             }
 
-            System.out.println("✅ Salón encontrado: " + salon.getName() + " (ID: " + salon.getId() + ")");
-
-            List<Booking> bookings = bookingService.getBookingsBySalon(salon.getId());
-            System.out.println("📊 Bookings encontrados para earnings: " + bookings.size());
-
-            List<Map<String, Object>> chartData = bookingChartService.generateEarningsChartData(bookings);
-            System.out.println("📈 Datos de earnings generados: " + chartData.size() + " puntos");
+            List<BookingDailyRollup> series = series(salon.getId(), from, to);
+            List<Map<String, Object>> chartData = metrics.timeChart("earnings",
+                    () -> bookingChartService.generateEarningsChartData(series, granularity));
 
+            metrics.countRequest("chart.earnings", "ok");
+            log.debug("Chart earnings salón {}: {} rollups -> {} puntos", salon.getId(), series.size(), chartData.size());
             return ResponseEntity.ok(chartData);
 
         } catch (feign.FeignException.NotFound e) {
-            System.out.println("ℹ️ 404 - Usuario no tiene salón registrado");
+            // el usuario no tiene salón registrado
+            metrics.countRequest("chart.earnings", "salon_not_found");
             return ResponseEntity.ok(Collections.emptyList());
         } catch (Exception e) {
-            System.err.println("❌ Error obteniendo datos de earnings: " + e.getMessage());
+            metrics.countRequest("chart.earnings", "error");
+            log.warn("Error obteniendo datos de earnings: {}", e.getMessage());
             return ResponseEntity.ok(Collections.emptyList());
         }
     }
 
     @GetMapping("/bookings")
     public ResponseEntity<List<Map<String, Object>>> getBookingsChartData(
-            @RequestHeader("Authorization") String jwt) {
-
-        System.out.println("📊 CHART CONTROLLER - BOOKINGS REQUEST");
+            @RequestHeader("Authorization") String jwt,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "DAILY") ChartGranularity granularity) {
 
         try {
-            ResponseEntity<SalonDTO> salonResponse = salonService.getSalonByOwner(jwt);
-            SalonDTO salon = salonResponse.getBody();
+            SalonDTO salon = lookupClient.getSalonByOwner(jwt);
 
             if (salon == null) {
-                System.out.println("⚠️ Respuesta de salón es null para bookings");
+                metrics.countRequest("chart.bookings", "salon_not_found");
                 return ResponseEntity.ok(Collections.emptyList());
             }
 
-            System.out.println("✅ Salón encontrado para bookings: " + salon.getName() + " (ID: " + salon.getId() + ")");
-
-            List<Booking> bookings = bookingService.getBookingsBySalon(salon.getId());
-            System.out.println("📊 Bookings encontrados para gráfico: " + bookings.size());
-
-            List<Map<String, Object>> chartData = bookingChartService.generateBookingCountChartData(bookings);
-            System.out.println("📈 Datos de bookings generados: " + chartData.size() + " puntos");
+            List<BookingDailyRollup> series = series(salon.getId(), from, to);
+            List<Map<String, Object>> chartData = metrics.timeChart("bookings",
+                    () -> bookingChartService.generateBookingCountChartData(series, granularity));
 
+            metrics.countRequest("chart.bookings", "ok");
+            log.debug("Chart bookings salón {}: {} rollups -> {} puntos", salon.getId(), series.size(), chartData.size());
             return ResponseEntity.ok(chartData);
 
         } catch (feign.FeignException.NotFound e) {
-            System.out.println("ℹ️ 404 - Usuario no tiene salón registrado para bookings");
+            // el usuario no tiene salón registrado
+            metrics.countRequest("chart.bookings", "salon_not_found");
             return ResponseEntity.ok(Collections.emptyList());
         } catch (Exception e) {
-            System.err.println("❌ Error obteniendo datos de bookings: " + e.getMessage());
+            metrics.countRequest("chart.bookings", "error");
+            log.warn("Error obteniendo datos de bookings: {}", e.getMessage());
             return ResponseEntity.ok(Collections.emptyList());
         }
     }
-}
\ No newline at end of file
+
+    private List<BookingDailyRollup> series(Long salonId, LocalDate from, LocalDate to) {
+        LocalDate today = LocalDate.now();
+        LocalDate start = from != null ? from : today.minusDays(defaultDaysBack);
+        LocalDate end = to != null ? to : today.plusDays(defaultDaysAhead);
+        return bookingRollupService.getSeries(salonId, start, end);
+    }
+}
@@ -0,0 +1,6 @@
+package com.zosh.domain;
+
+/** Link de pago del checkout asíncrono (POST /api/bookings/async) */
+public enum PaymentLinkStatus {
+    REQUESTED, CREATED, FAILED
+}
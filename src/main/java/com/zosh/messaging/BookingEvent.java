@@ -0,0 +1,33 @@
+package com.zosh.messaging;
+
+import com.zosh.domain.BookingStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/** Mensaje publicado en booking.exchange con routing key booking.event.* */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingEvent {
+
+    private String eventType;
+
+    private Long bookingId;
+    private Long salonId;
+    private Long customerId;
+
+    private BookingStatus status;
+    private BookingStatus previousStatus;
+
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private BigDecimal totalPrice;
+
+    private LocalDateTime occurredAt;
+}
@@ -1,14 +1,22 @@
 package com.zosh.messaging;
 
 
+import com.rabbitmq.client.Channel;
 import com.zosh.modal.PaymentOrder;
 
 import com.zosh.service.BookingService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.messaging.Message;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.util.List;
+
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class BookingEventConsumer {
@@ -16,14 +24,42 @@ public class BookingEventConsumer {
 
     private final BookingService bookingService;
 
-    @RabbitListener(queues = "booking-queue")
-    public void bookingUpdateListener(PaymentOrder paymentOrder){
-
-        System.out.println("Received message: " + paymentOrder);
+    /**
+     * Recibe los pagos en lotes (ver RabbitConfig.bookingBatchListenerFactory) y confirma
+     * todas sus reservas en una transacción. Si el lote falla se reintenta mensaje a
+     * mensaje: cada uno se confirma (ack) o se rechaza hacia la DLQ por separado, así los
+     * que ya se aplicaron no se reentregan ni terminan en la DLQ.
+     */
+    @RabbitListener(queues = "booking-queue", containerFactory = "bookingBatchListenerFactory")
+    public void bookingUpdateListener(List<Message<PaymentOrder>> messages, Channel channel) throws IOException {
 
-        bookingService.bookingSucess(paymentOrder);
-
-        System.out.println("Received message: " + paymentOrder);
+        List<PaymentOrder> paymentOrders = messages.stream().map(Message::getPayload).toList();
+        try {
+            int confirmed = bookingService.bookingSucess(paymentOrders);
+            log.debug("Received {} payment messages, confirmed {} bookings", paymentOrders.size(), confirmed);
+        } catch (RuntimeException batchError) {
+            log.warn("Batch of {} failed, retrying one by one: {}", paymentOrders.size(), batchError.getMessage());
+            for (Message<PaymentOrder> message : messages) {
+                try {
+                    bookingService.bookingSucess(message.getPayload());
+                    channel.basicAck(deliveryTag(message), false);
+                } catch (RuntimeException e) {
+                    log.error("Failed message: {} - {}", message.getPayload(), e.getMessage());
+                    // sin reencolar: booking-queue lo manda a booking.dlx
+                    channel.basicNack(deliveryTag(message), false, false);
+                }
+            }
+            return;
+        }
+        // los tags de un canal son crecientes y el lote incluye todo lo pendiente hasta el último
+        channel.basicAck(deliveryTag(messages.get(messages.size() - 1)), true);
+    }
 
+    private static long deliveryTag(Message<?> message) {
+        Long tag = message.getHeaders().get(AmqpHeaders.DELIVERY_TAG, Long.class);
+        if (tag == null) {
+            throw new IllegalStateException("Message without " + AmqpHeaders.DELIVERY_TAG);
+        }
+        return tag;
     }
 }
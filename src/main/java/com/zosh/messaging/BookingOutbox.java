@@ -0,0 +1,106 @@
+package com.zosh.messaging;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zosh.domain.BookingStatus;
+import com.zosh.domain.PaymentMethod;
+import com.zosh.modal.Booking;
+import com.zosh.modal.OutboxEvent;
+import com.zosh.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Escribe los eventos de ciclo de vida de las reservas en booking_outbox dentro de la
+ * transacción en curso. Routing keys en booking.exchange:
+ *   booking.event.created
+ *   booking.event.status.{pending|confirmed|cancelled}
+ *   payment.process (pedido de link de pago, payment-queue)
+ * (booking.created queda reservado a los pagos que consume booking-queue).
+ */
+@Component
+@RequiredArgsConstructor
+public class BookingOutbox {
+
+    public static final String EXCHANGE = "booking.exchange";
+    public static final String CREATED = "booking.event.created";
+    public static final String STATUS_PREFIX = "booking.event.status.";
+    public static final String PAYMENT_PROCESS = "payment.process";
+
+    private final OutboxEventRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+
+    public void bookingCreated(Booking booking) {
+        append(CREATED, booking, null);
+    }
+
+    public void statusChanged(Booking booking, BookingStatus previous) {
+        append(statusRoutingKey(booking), booking, previous);
+    }
+
+    /** El link se pide recién cuando la reserva está guardada (el relay publica después del commit) */
+    public void paymentLinkRequested(Booking booking, PaymentMethod paymentMethod) {
+        PaymentLinkCommand command = PaymentLinkCommand.builder()
+                .bookingId(booking.getId())
+                .paymentMethod(paymentMethod)
+                .requestedAt(LocalDateTime.now())
+                .build();
+        save(booking.getId(), PAYMENT_PROCESS, command);
+    }
+
+    /** Un evento por reserva, guardados con un saveAll (lote JDBC) */
+    public void statusChanged(Collection<Booking> bookings, BookingStatus previous) {
+        List<OutboxEvent> events = new ArrayList<>(bookings.size());
+        for (Booking booking : bookings) {
+            String routingKey = statusRoutingKey(booking);
+            events.add(outboxEvent(booking.getId(), routingKey, event(routingKey, booking, previous)));
+        }
+        outboxRepository.saveAll(events);
+    }
+
+    private static String statusRoutingKey(Booking booking) {
+        return STATUS_PREFIX + (booking.getStatus() != null ? booking.getStatus().name().toLowerCase() : "pending");
+    }
+
+    private void append(String routingKey, Booking booking, BookingStatus previous) {
+        save(booking.getId(), routingKey, event(routingKey, booking, previous));
+    }
+
+    private static BookingEvent event(String routingKey, Booking booking, BookingStatus previous) {
+        return BookingEvent.builder()
+                .eventType(routingKey)
+                .bookingId(booking.getId())
+                .salonId(booking.getSalonId())
+                .customerId(booking.getCustomerId())
+                .status(booking.getStatus())
+                .previousStatus(previous)
+                .startTime(booking.getStartTime())
+                .endTime(booking.getEndTime())
+                .totalPrice(booking.getTotalPrice())
+                .occurredAt(LocalDateTime.now())
+                .build();
+    }
+
+    private void save(Long aggregateId, String routingKey, Object payload) {
+        outboxRepository.save(outboxEvent(aggregateId, routingKey, payload));
+    }
+
+    private OutboxEvent outboxEvent(Long aggregateId, String routingKey, Object payload) {
+        try {
+            return OutboxEvent.builder()
+                    .aggregateId(aggregateId)
+                    .eventType(routingKey)
+                    .exchange(EXCHANGE)
+                    .routingKey(routingKey)
+                    .payload(objectMapper.writeValueAsString(payload))
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize " + routingKey + " for booking " + aggregateId, e);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.zosh.messaging;
+
+import com.zosh.modal.OutboxEvent;
+import com.zosh.repository.OutboxEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publica booking_outbox en RabbitMQ por lotes.
+ *
+ * Cada ciclo bloquea hasta batchSize eventos pendientes (SKIP LOCKED), los envía con
+ * publisher confirms y solo marca como publicados los que el broker confirmó (ack).
+ * Los no confirmados se reintentan en el siguiente ciclo: la entrega es al menos una vez,
+ * los consumidores pueden deduplicar por messageId (= id del evento).
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxRepository;
+    private final RabbitTemplate rabbitTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${booking.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${booking.outbox.confirm-timeout-ms:5000}")
+    private long confirmTimeoutMs;
+
+    @Value("${booking.outbox.retention-hours:72}")
+    private long retentionHours;
+
+    public OutboxRelay(OutboxEventRepository outboxRepository,
+            RabbitTemplate rabbitTemplate,
+            PlatformTransactionManager transactionManager) {
+        this.outboxRepository = outboxRepository;
+        this.rabbitTemplate = rabbitTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${booking.outbox.poll-interval-ms:1000}")
+    public void drain() {
+        int published;
+        do {
+            Integer result = transactionTemplate.execute(tx -> publishBatch());
+            published = result != null ? result : 0;
+        } while (published == batchSize);
+    }
+
+    /** Devuelve cuántos eventos quedaron confirmados por el broker */
+    int publishBatch() {
+        List<Long> ids = outboxRepository.findUnpublishedIds(Limit.of(batchSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<OutboxEvent> events = outboxRepository.lockUnpublished(ids);
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, CorrelationData> sent = new LinkedHashMap<>();
+        for (OutboxEvent event : events) {
+            CorrelationData correlation = new CorrelationData(String.valueOf(event.getId()));
+            rabbitTemplate.send(event.getExchange(), event.getRoutingKey(), toMessage(event), correlation);
+            sent.put(event.getId(), correlation);
+        }
+
+        List<Long> acked = new ArrayList<>();
+        List<Long> failed = new ArrayList<>();
+        for (Map.Entry<Long, CorrelationData> entry : sent.entrySet()) {
+            try {
+                CorrelationData.Confirm confirm = entry.getValue().getFuture()
+                        .get(confirmTimeoutMs, TimeUnit.MILLISECONDS);
+                (confirm.isAck() ? acked : failed).add(entry.getKey());
+            } catch (Exception e) {
+                failed.add(entry.getKey());
+            }
+        }
+
+        if (!acked.isEmpty()) {
+            outboxRepository.markPublished(acked, LocalDateTime.now());
+        }
+        if (!failed.isEmpty()) {
+            outboxRepository.markAttempted(failed);
+            log.warn("Outbox: {} eventos sin confirmación, se reintentan", failed.size());
+        }
+        return failed.isEmpty() ? acked.size() : 0;
+    }
+
+    private Message toMessage(OutboxEvent event) {
+        return MessageBuilder.withBody(event.getPayload().getBytes(StandardCharsets.UTF_8))
+                .setContentType(MessageProperties.CONTENT_TYPE_JSON)
+                .setContentEncoding(StandardCharsets.UTF_8.name())
+                .setMessageId(String.valueOf(event.getId()))
+                .setHeader("eventType", event.getEventType())
+                .setHeader("bookingId", event.getAggregateId())
+                .build();
+    }
+
+    @Scheduled(cron = "${booking.outbox.cleanup-cron:0 15 * * * *}")
+    public void purgePublished() {
+        LocalDateTime before = LocalDateTime.now().minusHours(retentionHours);
+        transactionTemplate.executeWithoutResult(tx -> outboxRepository.deletePublishedBefore(before));
+    }
+}
@@ -0,0 +1,27 @@
+package com.zosh.messaging;
+
+import com.zosh.domain.PaymentMethod;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Pedido de link de pago publicado en booking.exchange con routing key payment.process
+ * (payment-queue). No lleva credenciales: queda en booking_outbox hasta la limpieza y en la
+ * DLQ si falla; el worker llama a pagos con PaymentServiceCredentials.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentLinkCommand {
+
+    private Long bookingId;
+
+    private PaymentMethod paymentMethod;
+
+    private LocalDateTime requestedAt;
+}
@@ -0,0 +1,90 @@
+package com.zosh.messaging;
+
+import com.zosh.metrics.BookingMetrics;
+import com.zosh.modal.Booking;
+import com.zosh.payload.response.PaymentLinkResponse;
+import com.zosh.service.BookingService;
+import com.zosh.service.clients.PaymentFeignClient;
+import com.zosh.service.clients.PaymentServiceCredentials;
+import com.zosh.service.clients.RemoteCallGuard;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.retry.MessageRecoverer;
+import org.springframework.amqp.rabbit.retry.RejectAndDontRequeueRecoverer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Crea los links de pago del checkout asíncrono fuera del hilo HTTP.
+ *
+ * Consume payment-queue (ver RabbitConfig.paymentLinkListenerFactory), llama al endpoint
+ * de servicio de pagos (sin JWT del cliente) y guarda el link en la reserva. Un mensaje repetido no crea otro link: solo se
+ * procesa si la reserva sigue PENDING con el link REQUESTED.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PaymentLinkWorker implements MessageRecoverer {
+
+    private final BookingService bookingService;
+    private final PaymentFeignClient paymentService;
+    private final RemoteCallGuard guard;
+    private final PaymentServiceCredentials credentials;
+    private final BookingMetrics metrics;
+
+    private final MessageRecoverer dlq = new RejectAndDontRequeueRecoverer();
+
+    @RabbitListener(queues = "payment-queue", containerFactory = "paymentLinkListenerFactory")
+    public void createPaymentLink(PaymentLinkCommand command) throws Exception {
+        Long bookingId = command.getBookingId();
+        Booking booking = bookingService.getBookingAwaitingPaymentLink(bookingId);
+        if (booking == null) {
+            log.debug("Booking {} ya no espera link de pago, se descarta el mensaje", bookingId);
+            metrics.countPaymentLink("skipped");
+            return;
+        }
+
+        PaymentLinkResponse link;
+        try {
+            String serviceToken = credentials.token();
+            link = guard.call(RemoteCallGuard.PAYMENT, () -> paymentService
+                    .createPaymentLinkAsService(serviceToken, booking.getCustomerId(), booking,
+                            command.getPaymentMethod())
+                    .getBody());
+        } catch (Exception e) {
+            if (RemoteCallGuard.isUnavailable(e)) {
+                // reintento con backoff; agotados los intentos pasa por recover()
+                throw e;
+            }
+            log.warn("Payment link rejected for booking {}: {}", bookingId, e.getMessage());
+            fail(bookingId);
+            return;
+        }
+
+        if (link == null || link.getPayment_link_url() == null) {
+            log.warn("Payment service returned no link for booking {}", bookingId);
+            fail(bookingId);
+            return;
+        }
+        boolean attached = bookingService.attachPaymentLink(bookingId,
+                link.getPayment_link_url(), link.getPayment_link_id());
+        metrics.countPaymentLink(attached ? "created" : "duplicate");
+    }
+
+    /** Reintentos agotados: la reserva queda con el link FAILED y el mensaje va a payment-queue.dlq */
+    @Override
+    public void recover(Message message, Throwable cause) {
+        Object bookingId = message.getMessageProperties().getHeader("bookingId");
+        if (bookingId instanceof Number id) {
+            log.error("Payment link for booking {} failed after retries: {}", id, cause.getMessage());
+            fail(id.longValue());
+        }
+        dlq.recover(message, cause);
+    }
+
+    private void fail(Long bookingId) {
+        bookingService.markPaymentLinkFailed(bookingId);
+        metrics.countPaymentLink("failed");
+    }
+}
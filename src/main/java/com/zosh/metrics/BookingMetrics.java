@@ -0,0 +1,110 @@
+package com.zosh.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Métricas de las etapas del servicio, publicadas en /actuator/metrics (y /actuator/prometheus
+ * si está el registry). La latencia de cada cliente Feign la publica feign-micrometer
+ * como http.client.requests{clientName=...}.
+ *
+ *   booking.repository.query{query}        tiempo de cada consulta de lectura
+ *   booking.slot.check{outcome}            validación de disponibilidad al reservar
+ *   booking.enrichment.batch.size          reservas por lote de enriquecimiento
+ *   booking.enrichment.distinct.ids{kind}  servicios / salones distintos pedidos por lote
+ *   booking.chart.generation{chart}        armado de cada gráfica
+ *   booking.request{endpoint,outcome}      resultado de los endpoints de lectura
+ *   booking.remote.event{client,event}     respuestas de caché vencida y llamadas hedged
+ *   booking.payment.link{outcome}          links de pago del checkout asíncrono
+ *   booking.pending.expired                reservas PENDING canceladas por vencimiento
+ *   booking.archived                       reservas movidas a archived_bookings
+ */
+@Component
+public class BookingMetrics {
+
+    private final MeterRegistry registry;
+
+    /** 1 de cada N eventos de alta frecuencia se registra en DEBUG */
+    @Value("${booking.metrics.log-sample-rate:100}")
+    private int logSampleRate;
+
+    public BookingMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public <T> T timeQuery(String query, Supplier<T> call) {
+        return Timer.builder("booking.repository.query")
+                .tag("query", query)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(call);
+    }
+
+    public <T> T timeChart(String chart, Supplier<T> call) {
+        return Timer.builder("booking.chart.generation")
+                .tag("chart", chart)
+                .register(registry)
+                .record(call);
+    }
+
+    public Timer.Sample startTimer() {
+        return Timer.start(registry);
+    }
+
+    public void recordSlotCheck(Timer.Sample sample, String outcome) {
+        sample.stop(Timer.builder("booking.slot.check")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    public void recordEnrichmentBatch(int bookings, int distinctServices, int distinctSalons) {
+        DistributionSummary.builder("booking.enrichment.batch.size")
+                .baseUnit("bookings")
+                .register(registry)
+                .record(bookings);
+        DistributionSummary.builder("booking.enrichment.distinct.ids")
+                .tag("kind", "service")
+                .register(registry)
+                .record(distinctServices);
+        DistributionSummary.builder("booking.enrichment.distinct.ids")
+                .tag("kind", "salon")
+                .register(registry)
+                .record(distinctSalons);
+    }
+
+    public void countRequest(String endpoint, String outcome) {
+        registry.counter("booking.request", "endpoint", endpoint, "outcome", outcome).increment();
+    }
+
+    public void countRemoteEvent(String client, String event) {
+        registry.counter("booking.remote.event", "client", client, "event", event).increment();
+    }
+
+    public void countPaymentLink(String outcome) {
+        registry.counter("booking.payment.link", "outcome", outcome).increment();
+    }
+
+    public void countExpired(int released) {
+        if (released > 0) {
+            registry.counter("booking.pending.expired").increment(released);
+        }
+    }
+
+    public void countArchived(int moved) {
+        if (moved > 0) {
+            registry.counter("booking.archived").increment(moved);
+        }
+    }
+
+    /** true para ~1 de cada logSampleRate llamadas */
+    public boolean sampled() {
+        return logSampleRate <= 1 || ThreadLocalRandom.current().nextInt(logSampleRate) == 0;
+    }
+}
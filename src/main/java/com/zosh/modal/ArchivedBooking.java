@@ -0,0 +1,114 @@
+package com.zosh.modal;
+
+import com.zosh.domain.BookingStatus;
+import com.zosh.domain.PaymentMethod;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.BatchSize;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Reserva histórica movida desde bookings por BookingArchiver (inicio anterior al horizonte).
+ * Conserva el id original; solo se lee desde reportes y exportaciones con includeArchive.
+ */
+@Entity
+@Table(name = "archived_bookings", indexes = {
+        @Index(name = "idx_archived_bookings_salon_start", columnList = "salon_id, start_time"),
+        @Index(name = "idx_archived_bookings_customer_start", columnList = "customer_id, start_time")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ArchivedBooking {
+
+    @Id
+    private Long id;
+
+    @Column(name = "customer_id", nullable = false)
+    private Long customerId;
+
+    @Column(name = "salon_id", nullable = false)
+    private Long salonId;
+
+    @Column(name = "start_time", nullable = false)
+    private LocalDateTime startTime;
+
+    @Column(name = "end_time", nullable = false)
+    private LocalDateTime endTime;
+
+    @Column(name = "total_price", nullable = false, precision = 10, scale = 2)
+    private BigDecimal totalPrice;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 255)
+    private BookingStatus status;
+
+    @Column(name = "payment_status", length = 50)
+    private String paymentStatus;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payment_method", length = 50)
+    private PaymentMethod paymentMethod;
+
+    @Column(name = "group_id")
+    private Long groupId;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    @ElementCollection
+    @BatchSize(size = 100)
+    @CollectionTable(name = "archived_booking_service_ids", joinColumns = @JoinColumn(name = "booking_id"))
+    @Column(name = "service_id", nullable = false)
+    private Set<Long> serviceIds;
+
+    public static ArchivedBooking of(Booking booking, LocalDateTime archivedAt) {
+        return ArchivedBooking.builder()
+                .id(booking.getId())
+                .customerId(booking.getCustomerId())
+                .salonId(booking.getSalonId())
+                .startTime(booking.getStartTime())
+                .endTime(booking.getEndTime())
+                .totalPrice(booking.getTotalPrice())
+                .status(booking.getStatus())
+                .paymentStatus(booking.getPaymentStatus())
+                .paymentMethod(booking.getPaymentMethod())
+                .groupId(booking.getGroupId())
+                .createdAt(booking.getCreatedAt())
+                .updatedAt(booking.getUpdatedAt())
+                .archivedAt(archivedAt)
+                .serviceIds(new HashSet<>(booking.getServiceIds()))
+                .build();
+    }
+
+    /** Copia de solo lectura para los mismos mappers y exportaciones que las reservas vivas (no se guarda) */
+    public Booking toBooking() {
+        return Booking.builder()
+                .id(id)
+                .customerId(customerId)
+                .salonId(salonId)
+                .startTime(startTime)
+                .endTime(endTime)
+                .totalPrice(totalPrice)
+                .status(status)
+                .paymentStatus(paymentStatus)
+                .paymentMethod(paymentMethod)
+                .groupId(groupId)
+                .createdAt(createdAt)
+                .updatedAt(updatedAt)
+                .serviceIds(serviceIds != null ? new HashSet<>(serviceIds) : new HashSet<>())
+                .build();
+    }
+}
@@ -1,8 +1,11 @@
 package com.zosh.modal;
 
 import com.zosh.domain.BookingStatus;
+import com.zosh.domain.PaymentLinkStatus;
+import com.zosh.domain.PaymentMethod;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -11,7 +14,13 @@ import java.time.LocalDateTime;
 import java.util.Set;
 
 @Entity
-@Table(name = "bookings")
+@Table(name = "bookings", indexes = {
+        @Index(name = "idx_bookings_salon_start", columnList = "salon_id, start_time"),
+        @Index(name = "idx_bookings_customer_start", columnList = "customer_id, start_time"),
+        @Index(name = "idx_bookings_group", columnList = "group_id"),
+        @Index(name = "idx_bookings_status_created", columnList = "status, created_at"),
+        @Index(name = "idx_bookings_start", columnList = "start_time")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -21,7 +30,8 @@ public class Booking {
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bookings_seq_gen")
-    @SequenceGenerator(name = "bookings_seq_gen", sequenceName = "bookings_seq", allocationSize = 1)
+    // IDs reservados de a 50 (optimizador pooled): ver db/oracle/bookings_seq_increment.sql
+    @SequenceGenerator(name = "bookings_seq_gen", sequenceName = "bookings_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "customer_id", nullable = false)
@@ -46,6 +56,25 @@ public class Booking {
     @Column(name = "payment_status", length = 50)
     private String paymentStatus;
 
+    /** Checkout asíncrono: método elegido y link creado en segundo plano por PaymentLinkWorker */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payment_method", length = 50)
+    private PaymentMethod paymentMethod;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payment_link_status", length = 20)
+    private PaymentLinkStatus paymentLinkStatus;
+
+    @Column(name = "payment_link_url", length = 1000)
+    private String paymentLinkUrl;
+
+    @Column(name = "payment_link_id", length = 100)
+    private String paymentLinkId;
+
+    /** Alta masiva: id de la primera reserva del grupo (un único link de pago para todas) */
+    @Column(name = "group_id")
+    private Long groupId;
+
     @Column(name = "created_at", updatable = false)
     @CreationTimestamp
     private LocalDateTime createdAt;
@@ -54,7 +83,9 @@ public class Booking {
     @UpdateTimestamp
     private LocalDateTime updatedAt;
 
+    /** Sin entity graph, se inicializa de a 100 reservas por SELECT (páginas, exportación) */
     @ElementCollection
+    @BatchSize(size = 100)
     @CollectionTable(name = "booking_service_ids", joinColumns = @JoinColumn(name = "booking_id"))
     @Column(name = "service_id", nullable = false)
     private Set<Long> serviceIds;
@@ -0,0 +1,52 @@
+package com.zosh.modal;
+
+import com.zosh.domain.BookingStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Cantidad y total facturado de las reservas de un salón por día de inicio y estado.
+ * Las gráficas leen estas filas (acotadas por rango de fechas) en vez de las reservas.
+ */
+@Entity
+@Table(name = "booking_daily_rollups")
+@IdClass(BookingDailyRollup.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BookingDailyRollup {
+
+    @Id
+    @Column(name = "salon_id")
+    private Long salonId;
+
+    @Id
+    @Column(name = "rollup_day")
+    private LocalDate day;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 32)
+    private BookingStatus status;
+
+    @Column(name = "booking_count", nullable = false)
+    private Long bookingCount;
+
+    @Column(name = "earnings", nullable = false, precision = 14, scale = 2)
+    private BigDecimal earnings;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long salonId;
+        private LocalDate day;
+        private BookingStatus status;
+    }
+}
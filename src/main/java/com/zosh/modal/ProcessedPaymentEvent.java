@@ -0,0 +1,34 @@
+package com.zosh.modal;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Pago de booking-queue ya aplicado. La clave es el id del PaymentOrder
+ * (o su paymentLinkId si no trae id), así una reentrega de RabbitMQ se descarta.
+ */
+@Entity
+@Table(name = "processed_payment_events", indexes = {
+        @Index(name = "idx_processed_payment_events_at", columnList = "processed_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProcessedPaymentEvent {
+
+    @Id
+    @Column(name = "event_key", length = 191)
+    private String eventKey;
+
+    @Column(name = "booking_id")
+    private Long bookingId;
+
+    @Column(name = "processed_at", updatable = false)
+    @CreationTimestamp
+    private LocalDateTime processedAt;
+}
@@ -0,0 +1,39 @@
+package com.zosh.modal;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Fila de bloqueo por (salón, día). Quien reserva en ese día la toma con
+ * SELECT ... FOR UPDATE, así dos altas del mismo salón y día se serializan
+ * y las de otros salones o días siguen en paralelo.
+ */
+@Entity
+@Table(name = "salon_day_locks")
+@IdClass(SalonDayLock.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SalonDayLock {
+
+    @Id
+    @Column(name = "salon_id")
+    private Long salonId;
+
+    @Id
+    @Column(name = "lock_day")
+    private LocalDate day;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long salonId;
+        private LocalDate day;
+    }
+}
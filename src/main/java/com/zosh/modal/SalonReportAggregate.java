@@ -0,0 +1,42 @@
+package com.zosh.modal;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Totales del reporte de un salón, mantenidos en cada alta / cambio de estado
+ * de sus reservas para que /report sea la lectura de una sola fila.
+ */
+@Entity
+@Table(name = "salon_report_aggregates")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SalonReportAggregate {
+
+    @Id
+    @Column(name = "salon_id")
+    private Long salonId;
+
+    @Column(name = "total_earnings", nullable = false, precision = 14, scale = 2)
+    private BigDecimal totalEarnings;
+
+    @Column(name = "total_bookings", nullable = false)
+    private Long totalBookings;
+
+    @Column(name = "cancelled_bookings", nullable = false)
+    private Long cancelledBookings;
+
+    @Column(name = "total_refund", nullable = false, precision = 14, scale = 2)
+    private BigDecimal totalRefund;
+
+    @Column(name = "updated_at")
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,22 @@
+package com.zosh.payload.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Disponibilidad de un salón en un día: huecos libres dentro del horario y
+ * horas de inicio en las que cabe la duración pedida.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AvailableSlotsDTO {
+    private LocalDate date;
+    private List<BookedSlotsDTO> freeWindows;
+    private List<LocalDateTime> startTimes;
+}
@@ -0,0 +1,41 @@
+package com.zosh.payload.request;
+
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Posición de continuación para los listados paginados por (start_time, id).
+ * Viaja al cliente como un token opaco en base64. Inmutable: START es compartido.
+ */
+@Value
+public class BookingCursor {
+
+    /** Antes de la primera página: cualquier reserva real queda después */
+    public static final BookingCursor START = new BookingCursor(LocalDateTime.of(1970, 1, 1, 0, 0), 0L);
+
+    LocalDateTime startTime;
+    Long id;
+
+    public String encode() {
+        String raw = startTime + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static BookingCursor decode(String token) throws Exception {
+        if (token == null || token.isBlank()) {
+            return START;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            return new BookingCursor(
+                    LocalDateTime.parse(raw.substring(0, sep)),
+                    Long.valueOf(raw.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            throw new Exception("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.zosh.payload.request;
+
+import com.zosh.domain.BookingStatus;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+public class BookingPageRequest {
+
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 100;
+
+    private BookingCursor after = BookingCursor.START;
+
+    private int size = DEFAULT_SIZE;
+
+    /** Filtros opcionales */
+    private BookingStatus status;
+    private LocalDate from;
+    private LocalDate to;
+}
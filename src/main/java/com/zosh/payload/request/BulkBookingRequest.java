@@ -0,0 +1,59 @@
+package com.zosh.payload.request;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Varias reservas con los mismos servicios: fechas explícitas (startTimes),
+ * una recurrencia (startTime cada everyDays, occurrences veces) o ambas.
+ */
+@Data
+public class BulkBookingRequest {
+
+    private Set<Long> serviceIds;
+
+    private List<LocalDateTime> startTimes;
+
+    private LocalDateTime startTime;
+
+    private Integer everyDays;
+
+    private Integer occurrences;
+
+    /**
+     * Todas las horas de inicio pedidas, sin repetidos y en orden. Falla si no queda ninguna
+     * o si son más de maxOccurrences; la recurrencia se valida antes de generar las fechas.
+     */
+    public List<LocalDateTime> resolveStartTimes(int maxOccurrences) throws Exception {
+        int count = startTime == null ? 0 : occurrences != null ? occurrences : 1;
+        int step = everyDays != null ? everyDays : 7;
+        int explicit = startTimes != null ? startTimes.size() : 0;
+        if (count < 0 || step < 1) {
+            throw new Exception("occurrences must be positive and everyDays at least 1");
+        }
+        if (count > maxOccurrences || explicit > maxOccurrences) {
+            throw tooMany(maxOccurrences);
+        }
+
+        List<LocalDateTime> starts = new ArrayList<>(explicit + count);
+        if (startTimes != null) {
+            starts.addAll(startTimes);
+        }
+        for (int i = 0; i < count; i++) {
+            starts.add(startTime.plusDays((long) i * step));
+        }
+        List<LocalDateTime> resolved = starts.stream().distinct().sorted().toList();
+        if (resolved.isEmpty() || resolved.size() > maxOccurrences) {
+            throw tooMany(maxOccurrences);
+        }
+        return resolved;
+    }
+
+    private static Exception tooMany(int maxOccurrences) {
+        return new Exception("A bulk booking must have between 1 and " + maxOccurrences + " occurrences");
+    }
+}
@@ -0,0 +1,33 @@
+package com.zosh.payload.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/** Link de pago por el total de un alta masiva; el pago confirma todas las reservas del grupo */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GroupPaymentRequest {
+
+    private Long groupId;
+
+    private Long customerId;
+
+    private Long salonId;
+
+    private List<Long> bookingIds;
+
+    private BigDecimal totalPrice;
+
+    private LocalDateTime startTime;
+
+    private LocalDateTime endTime;
+
+}
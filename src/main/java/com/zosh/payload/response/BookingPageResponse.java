@@ -0,0 +1,23 @@
+package com.zosh.payload.response;
+
+import com.zosh.payload.dto.BookingDTO;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingPageResponse {
+
+    private List<BookingDTO> bookings;
+
+    /** Token para pedir la página siguiente; null si no hay más */
+    private String nextCursor;
+
+    private boolean hasMore;
+
+    private int size;
+}
@@ -0,0 +1,20 @@
+package com.zosh.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkBookingResponse {
+
+	private Long groupId;
+	private List<Long> bookingIds;
+	private BigDecimal totalPrice;
+	private PaymentLinkResponse paymentLink;
+
+}
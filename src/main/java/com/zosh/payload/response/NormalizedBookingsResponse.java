@@ -0,0 +1,28 @@
+package com.zosh.payload.response;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.zosh.payload.dto.BookingDTO;
+import com.zosh.payload.dto.SalonDTO;
+import com.zosh.payload.dto.ServiceOfferingDTO;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Formato normalizado (application/vnd.booking.normalized+json): cada reserva lleva solo
+ * salonId y servicesIds, y cada salón y servicio aparece una vez en su tabla por id.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NormalizedBookingsResponse {
+
+	@JsonIgnoreProperties({ "salon", "services", "customer" })
+	private List<BookingDTO> bookings;
+	private Map<Long, SalonDTO> salons;
+	private Map<Long, ServiceOfferingDTO> services;
+
+}
@@ -0,0 +1,18 @@
+package com.zosh.payload.response;
+
+import com.zosh.domain.PaymentLinkStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentLinkStatusResponse {
+
+	private Long bookingId;
+	private PaymentLinkStatus status;
+	/** null hasta que el link está CREATED */
+	private PaymentLinkResponse paymentLink;
+
+}
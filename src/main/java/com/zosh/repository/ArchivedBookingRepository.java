@@ -0,0 +1,41 @@
+package com.zosh.repository;
+
+import com.zosh.modal.ArchivedBooking;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/** Mismas consultas de reportes que BookingRepository, sobre archived_bookings */
+public interface ArchivedBookingRepository extends JpaRepository<ArchivedBooking, Long> {
+
+    @EntityGraph(attributePaths = "serviceIds")
+    List<ArchivedBooking> findByCustomerId(Long customerId);
+
+    @EntityGraph(attributePaths = "serviceIds")
+    List<ArchivedBooking> findBySalonId(Long salonId);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select b from ArchivedBooking b where b.salonId = :salonId order by b.startTime, b.id")
+    Stream<ArchivedBooking> streamBySalonId(@Param("salonId") Long salonId);
+
+    @Query("select count(b) as totalBookings, " +
+            "sum(b.totalPrice) as totalEarnings, " +
+            "sum(case when b.status = com.zosh.domain.BookingStatus.CANCELLED then 1 else 0 end) as cancelledBookings, " +
+            "sum(case when b.status = com.zosh.domain.BookingStatus.CANCELLED then b.totalPrice end) as totalRefund " +
+            "from ArchivedBooking b where b.salonId = :salonId")
+    BookingRepository.SalonTotals sumTotalsBySalonId(@Param("salonId") Long salonId);
+
+    @Query("select b.startTime as startTime, b.status as status, b.totalPrice as totalPrice " +
+            "from ArchivedBooking b where b.salonId = :salonId")
+    List<BookingRepository.RollupRow> findRollupRowsBySalonId(@Param("salonId") Long salonId);
+}
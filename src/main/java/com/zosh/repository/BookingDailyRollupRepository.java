@@ -0,0 +1,47 @@
+package com.zosh.repository;
+
+import com.zosh.domain.BookingStatus;
+import com.zosh.modal.BookingDailyRollup;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface BookingDailyRollupRepository
+        extends JpaRepository<BookingDailyRollup, BookingDailyRollup.Key> {
+
+    /** Suma el delta sobre la fila (salón, día, estado); devuelve 0 si todavía no existe */
+    @Modifying
+    @Query("update BookingDailyRollup r set " +
+            "r.bookingCount = r.bookingCount + :count, " +
+            "r.earnings = r.earnings + :earnings " +
+            "where r.salonId = :salonId and r.day = :day and r.status = :status")
+    int applyDelta(@Param("salonId") Long salonId,
+            @Param("day") LocalDate day,
+            @Param("status") BookingStatus status,
+            @Param("count") long count,
+            @Param("earnings") BigDecimal earnings);
+
+    /** Serie acotada [from, to] para las gráficas */
+    @Query("select r from BookingDailyRollup r where r.salonId = :salonId " +
+            "and r.day >= :from and r.day <= :to order by r.day")
+    List<BookingDailyRollup> findSeries(@Param("salonId") Long salonId,
+            @Param("from") LocalDate from,
+            @Param("to") LocalDate to);
+
+    boolean existsBySalonId(Long salonId);
+
+    @Query("select distinct r.salonId from BookingDailyRollup r")
+    List<Long> findSalonIds();
+
+    /** SELECT ... FOR UPDATE de todas las filas del salón: la reconstrucción espera a los deltas en curso */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from BookingDailyRollup r where r.salonId = :salonId")
+    List<BookingDailyRollup> lockBySalonId(@Param("salonId") Long salonId);
+}
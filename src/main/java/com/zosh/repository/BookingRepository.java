@@ -1,13 +1,245 @@
 package com.zosh.repository;
 
+import com.zosh.domain.BookingStatus;
+import com.zosh.domain.PaymentLinkStatus;
 import com.zosh.modal.Booking;
+import com.zosh.payload.dto.BookedSlotsDTO;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface BookingRepository extends JpaRepository<Booking, Long> {
 
+    /** Totales del reporte calculados en la BD (un solo SELECT agregado) */
+    interface SalonTotals {
+        Long getTotalBookings();
+        BigDecimal getTotalEarnings();
+        Long getCancelledBookings();
+        BigDecimal getTotalRefund();
+    }
+
+    /** Intervalo ocupado, sin hidratar la entidad (índice de slots) */
+    interface SlotRow {
+        Long getId();
+        LocalDateTime getStartTime();
+        LocalDateTime getEndTime();
+    }
+
+    /** Campos mínimos para reconstruir las agregaciones diarias */
+    interface RollupRow {
+        LocalDateTime getStartTime();
+        BookingStatus getStatus();
+        BigDecimal getTotalPrice();
+    }
+
+    /*
+     * Las listas completas traen serviceIds en el mismo SELECT (join fetch vía entity graph).
+     * Las consultas con Limit y el cursor no pueden hacer join fetch de una colección sin
+     * paginar en memoria: usan el @BatchSize de Booking.serviceIds.
+     */
+    @EntityGraph(attributePaths = "serviceIds")
     List<Booking> findByCustomerId(Long customerId);
+
+    @EntityGraph(attributePaths = "serviceIds")
     List<Booking> findBySalonId(Long salonId);
 
+    /**
+     * Página por keyset: reservas del salón posteriores a (afterStart, afterId)
+     * en orden (start_time, id), filtradas por estado y por inicio en [from, to).
+     */
+    @Query("select b from Booking b where b.salonId = :salonId " +
+            "and b.status in :statuses and b.startTime >= :from and b.startTime < :to " +
+            "and (b.startTime > :afterStart or (b.startTime = :afterStart and b.id > :afterId)) " +
+            "order by b.startTime, b.id")
+    List<Booking> findSalonPage(@Param("salonId") Long salonId,
+            @Param("statuses") Collection<BookingStatus> statuses,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            @Param("afterStart") LocalDateTime afterStart,
+            @Param("afterId") Long afterId,
+            Limit limit);
+
+    /** Igual que {@link #findSalonPage} pero por cliente (usa idx_bookings_customer_start) */
+    @Query("select b from Booking b where b.customerId = :customerId " +
+            "and b.status in :statuses and b.startTime >= :from and b.startTime < :to " +
+            "and (b.startTime > :afterStart or (b.startTime = :afterStart and b.id > :afterId)) " +
+            "order by b.startTime, b.id")
+    List<Booking> findCustomerPage(@Param("customerId") Long customerId,
+            @Param("statuses") Collection<BookingStatus> statuses,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            @Param("afterStart") LocalDateTime afterStart,
+            @Param("afterId") Long afterId,
+            Limit limit);
+
+    /** Reservas en ese estado creadas antes de {@code before}, las más viejas primero (idx_bookings_status_created) */
+    @Query("select b from Booking b where b.status = :status and b.createdAt < :before " +
+            "order by b.createdAt, b.id")
+    List<Booking> findByStatusCreatedBefore(@Param("status") BookingStatus status,
+            @Param("before") LocalDateTime before,
+            Limit limit);
+
+    /**
+     * Vencimiento set-based: un solo UPDATE para el lote, que vuelve a exigir el estado y la
+     * antigüedad con la fila ya bloqueada. Vacía el contexto de persistencia.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Booking b set b.status = :status, b.updatedAt = :now " +
+            "where b.id in :ids and b.status = :expected and b.createdAt < :before")
+    int compareAndSetStatusCreatedBefore(@Param("ids") Collection<Long> ids,
+            @Param("expected") BookingStatus expected,
+            @Param("status") BookingStatus status,
+            @Param("before") LocalDateTime before,
+            @Param("now") LocalDateTime now);
+
+    /** Cuáles de las reservas quedaron en status con ese updatedAt (las que cambió un UPDATE masivo) */
+    @Query("select b.id from Booking b where b.id in :ids and b.status = :status and b.updatedAt = :now")
+    List<Long> findIdsByIdInAndStatusAndUpdatedAt(@Param("ids") Collection<Long> ids,
+            @Param("status") BookingStatus status,
+            @Param("now") LocalDateTime now);
+
+    /** Reservas que empezaron antes de {@code before} y ya no están en {@code excluded} (archivado) */
+    @Query("select b.id from Booking b where b.startTime < :before and b.status <> :excluded " +
+            "order by b.startTime, b.id")
+    List<Long> findIdsStartedBefore(@Param("before") LocalDateTime before,
+            @Param("excluded") BookingStatus excluded,
+            Limit limit);
+
+    @EntityGraph(attributePaths = "serviceIds")
+    List<Booking> findByIdIn(Collection<Long> ids);
+
+    /**
+     * Bloquea (SELECT ... FOR UPDATE) las reservas indicadas, y las de los grupos que encabezan,
+     * que siguen en el estado esperado
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from Booking b where (b.id in :ids or b.groupId in :ids) and b.status = :expected")
+    List<Booking> lockByIdOrGroupIdInAndStatus(@Param("ids") Collection<Long> ids,
+            @Param("expected") BookingStatus expected);
+
+    /**
+     * Compare-and-set masivo: solo cambia las filas que siguen en {@code expected}
+     * (una reserva cancelada no vuelve a confirmarse). Vacía el contexto de persistencia.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Booking b set b.status = :status, b.updatedAt = :now " +
+            "where b.id in :ids and b.status = :expected")
+    int compareAndSetStatus(@Param("ids") Collection<Long> ids,
+            @Param("expected") BookingStatus expected,
+            @Param("status") BookingStatus status,
+            @Param("now") LocalDateTime now);
+
+    /**
+     * Guarda el resultado del link de pago solo si la reserva sigue en {@code expected}
+     * (un mensaje repetido de payment-queue no pisa un link ya guardado)
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Booking b set b.paymentLinkStatus = :status, b.paymentLinkUrl = :url, " +
+            "b.paymentLinkId = :linkId, b.updatedAt = :now " +
+            "where b.id = :id and b.paymentLinkStatus = :expected")
+    int compareAndSetPaymentLink(@Param("id") Long id,
+            @Param("expected") PaymentLinkStatus expected,
+            @Param("status") PaymentLinkStatus status,
+            @Param("url") String url,
+            @Param("linkId") String linkId,
+            @Param("now") LocalDateTime now);
+
+    /** Cursor de solo lectura sobre todas las reservas del salón (exportación); cerrar el Stream */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select b from Booking b where b.salonId = :salonId order by b.startTime, b.id")
+    Stream<Booking> streamBySalonId(@Param("salonId") Long salonId);
+
+    /**
+     * Reservas del salón que tocan la ventana [from, to). startFrom (from menos la duración
+     * máxima de una reserva) acota por abajo el rango de idx_bookings_salon_start; una reserva
+     * que termina justo en from no toca la ventana.
+     */
+    @EntityGraph(attributePaths = "serviceIds")
+    @Query("select b from Booking b where b.salonId = :salonId " +
+            "and b.startTime >= :startFrom and b.startTime < :to and b.endTime > :from " +
+            "order by b.startTime")
+    List<Booking> findBySalonIdAndWindow(
+            @Param("salonId") Long salonId,
+            @Param("startFrom") LocalDateTime startFrom,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+
+    /** Solo inicio y fin de las reservas con esos estados que tocan [from, to), sin hidratar entidades */
+    @Query("select new com.zosh.payload.dto.BookedSlotsDTO(b.startTime, b.endTime) from Booking b " +
+            "where b.salonId = :salonId " +
+            "and b.startTime >= :startFrom and b.startTime < :to and b.endTime > :from " +
+            "and b.status in :statuses " +
+            "order by b.startTime")
+    List<BookedSlotsDTO> findSlotsBySalonIdAndWindow(
+            @Param("salonId") Long salonId,
+            @Param("startFrom") LocalDateTime startFrom,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            @Param("statuses") Collection<BookingStatus> statuses);
+
+    /** Igual que {@link #findBySalonIdAndWindow} pero solo con los estados indicados */
+    @Query("select b from Booking b where b.salonId = :salonId " +
+            "and b.startTime >= :startFrom and b.startTime < :to and b.endTime > :from " +
+            "and b.status in :statuses " +
+            "order by b.startTime")
+    List<Booking> findBySalonIdAndWindowAndStatusIn(
+            @Param("salonId") Long salonId,
+            @Param("startFrom") LocalDateTime startFrom,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            @Param("statuses") Collection<BookingStatus> statuses);
+
+    /**
+     * Verificación contra la BD con el mismo criterio que BookingSlotIndex (solape o mismo
+     * inicio / fin). Solo mira reservas que empiezan desde dayStart, acotado por el índice
+     * (salon_id, start_time); excludeId deja fuera a la propia reserva al reactivarla.
+     */
+    @Query("select case when count(b) > 0 then true else false end from Booking b " +
+            "where b.salonId = :salonId and b.id <> :excludeId " +
+            "and b.startTime >= :dayStart and b.startTime <= :end " +
+            "and (b.status is null or b.status <> com.zosh.domain.BookingStatus.CANCELLED) " +
+            "and ((b.startTime < :end and b.endTime > :start) or b.startTime = :start or b.endTime = :end)")
+    boolean existsConflicting(@Param("salonId") Long salonId,
+            @Param("excludeId") Long excludeId,
+            @Param("dayStart") LocalDateTime dayStart,
+            @Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end);
+
+    /** Intervalos (id, inicio, fin) de las reservas no canceladas del salón que empiezan en [from, to) */
+    @Query("select b.id as id, b.startTime as startTime, b.endTime as endTime from Booking b " +
+            "where b.salonId = :salonId and b.startTime >= :from and b.startTime < :to " +
+            "and (b.status is null or b.status <> com.zosh.domain.BookingStatus.CANCELLED)")
+    List<SlotRow> findActiveBySalonIdAndStartTimeRange(
+            @Param("salonId") Long salonId,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+
+    @Query("select count(b) as totalBookings, " +
+            "sum(b.totalPrice) as totalEarnings, " +
+            "sum(case when b.status = com.zosh.domain.BookingStatus.CANCELLED then 1 else 0 end) as cancelledBookings, " +
+            "sum(case when b.status = com.zosh.domain.BookingStatus.CANCELLED then b.totalPrice end) as totalRefund " +
+            "from Booking b where b.salonId = :salonId")
+    SalonTotals sumTotalsBySalonId(@Param("salonId") Long salonId);
+
+    @Query("select b.startTime as startTime, b.status as status, b.totalPrice as totalPrice " +
+            "from Booking b where b.salonId = :salonId")
+    List<RollupRow> findRollupRowsBySalonId(@Param("salonId") Long salonId);
+
 }
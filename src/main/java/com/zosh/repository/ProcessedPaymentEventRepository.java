@@ -0,0 +1,21 @@
+package com.zosh.repository;
+
+import com.zosh.modal.ProcessedPaymentEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface ProcessedPaymentEventRepository extends JpaRepository<ProcessedPaymentEvent, String> {
+
+    @Query("select e.eventKey from ProcessedPaymentEvent e where e.eventKey in :keys")
+    List<String> findExistingKeys(@Param("keys") Collection<String> keys);
+
+    @Modifying
+    @Query("delete from ProcessedPaymentEvent e where e.processedAt < :before")
+    int deleteProcessedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,22 @@
+package com.zosh.repository;
+
+import com.zosh.modal.SalonDayLock;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+public interface SalonDayLockRepository extends JpaRepository<SalonDayLock, SalonDayLock.Key> {
+
+    /** SELECT ... FOR UPDATE WAIT: espera hasta 5 s a que termine la otra alta del mismo día */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "5000"))
+    @Query("select l from SalonDayLock l where l.salonId = :salonId and l.day = :day")
+    Optional<SalonDayLock> lock(@Param("salonId") Long salonId, @Param("day") LocalDate day);
+}
@@ -0,0 +1,34 @@
+package com.zosh.repository;
+
+import com.zosh.modal.SalonReportAggregate;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+public interface SalonReportAggregateRepository extends JpaRepository<SalonReportAggregate, Long> {
+
+    /** Suma los deltas sobre la fila del salón; devuelve 0 si la fila todavía no existe */
+    @Modifying
+    @Query("update SalonReportAggregate a set " +
+            "a.totalEarnings = a.totalEarnings + :earnings, " +
+            "a.totalBookings = a.totalBookings + :bookings, " +
+            "a.cancelledBookings = a.cancelledBookings + :cancelled, " +
+            "a.totalRefund = a.totalRefund + :refund " +
+            "where a.salonId = :salonId")
+    int applyDelta(@Param("salonId") Long salonId,
+            @Param("earnings") BigDecimal earnings,
+            @Param("bookings") long bookings,
+            @Param("cancelled") long cancelled,
+            @Param("refund") BigDecimal refund);
+
+    /** SELECT ... FOR UPDATE: la reconciliación espera a los deltas en curso y bloquea los siguientes */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from SalonReportAggregate a where a.salonId = :salonId")
+    Optional<SalonReportAggregate> lock(@Param("salonId") Long salonId);
+}
@@ -1,15 +1,23 @@
 package com.zosh.service;
 
 import com.zosh.domain.BookingStatus;
+import com.zosh.domain.PaymentMethod;
 import com.zosh.modal.*;
+import com.zosh.payload.dto.AvailableSlotsDTO;
+import com.zosh.payload.dto.BookedSlotsDTO;
 import com.zosh.payload.dto.SalonDTO;
 import com.zosh.payload.dto.ServiceOfferingDTO;
 import com.zosh.payload.dto.UserDTO;
+import com.zosh.payload.request.BookingPageRequest;
 import com.zosh.payload.request.BookingRequest;
+import org.springframework.data.domain.Slice;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
 public interface BookingService {
 
@@ -20,21 +28,96 @@ public interface BookingService {
             SalonDTO salon,
             Set<ServiceOfferingDTO> serviceOfferingSet) throws Exception;
 
+    /**
+     * Checkout asíncrono: crea la reserva PENDING y, en la misma transacción, deja en el
+     * outbox el pedido del link de pago (payment-queue). El link lo guarda PaymentLinkWorker.
+     */
+    Booking createBookingWithDeferredPaymentLink(
+            BookingRequest booking,
+            UserDTO user,
+            SalonDTO salon,
+            Set<ServiceOfferingDTO> serviceOfferingSet,
+            PaymentMethod paymentMethod) throws Exception;
+
+    /**
+     * Crea una reserva por hora de inicio, todas con los mismos servicios, en una sola
+     * transacción: o se crean todas o ninguna. Devuelve el grupo ordenado por inicio.
+     */
+    List<Booking> createBookings(
+            List<LocalDateTime> startTimes,
+            UserDTO user,
+            SalonDTO salon,
+            Set<ServiceOfferingDTO> serviceOfferingSet) throws Exception;
+
 
     List<Booking> getBookingsByCustomer(Long customerId);
 
+    /** Con includeArchive agrega las reservas de archived_bookings (ver BookingArchiver) */
+    List<Booking> getBookingsByCustomer(Long customerId, boolean includeArchive);
+
+    /** Página por keyset (start_time, id) de las reservas del cliente */
+    Slice<Booking> getBookingsByCustomer(Long customerId, BookingPageRequest page);
+
 
     List<Booking> getBookingsBySalon(Long salonId);
 
+    List<Booking> getBookingsBySalon(Long salonId, boolean includeArchive);
+
+    /** Página por keyset (start_time, id) de las reservas del salón */
+    Slice<Booking> getBookingsBySalon(Long salonId, BookingPageRequest page);
+
+    /**
+     * Recorre las reservas del salón con un cursor y las entrega en lotes de batchSize;
+     * cada lote se libera del contexto de persistencia después de procesarse.
+     */
+    void streamBookingsBySalon(Long salonId, int batchSize, Consumer<List<Booking>> batchConsumer);
 
+    /** Igual, y con includeArchive sigue con las reservas archivadas después de las vivas */
+    void streamBookingsBySalon(Long salonId, boolean includeArchive, int batchSize,
+            Consumer<List<Booking>> batchConsumer);
+
+
+    /** Reserva viva o, si ya se archivó, su copia de archived_bookings; null si no existe */
     Booking getBookingById(Long bookingId);
 
     Booking bookingSucess(PaymentOrder order);
 
+    /** Confirma las reservas de varios pagos con un único UPDATE; devuelve cuántas cambiaron */
+    int bookingSucess(List<PaymentOrder> orders);
+
+
+    /** Reserva PENDING que sigue esperando su link de pago, con los servicios cargados; si no, null */
+    Booking getBookingAwaitingPaymentLink(Long bookingId);
+
+    /** Guarda el link si la reserva todavía lo esperaba; false si ya tenía uno */
+    boolean attachPaymentLink(Long bookingId, String paymentLinkUrl, String paymentLinkId);
+
+    /** El link no se pudo crear: el cliente lo ve al consultar y puede volver a pagar */
+    boolean markPaymentLinkFailed(Long bookingId);
+
+
+    /**
+     * Cancela con un solo UPDATE hasta limit reservas PENDING creadas antes de createdBefore
+     * y libera sus slots; devuelve cuántas cambiaron. Las de un grupo se crearon juntas y
+     * vencen en la misma corrida del job.
+     */
+    int expirePendingBookings(LocalDateTime createdBefore, int limit);
 
     Booking updateBookingStatus(Long bookingId, BookingStatus status) throws Exception;
 
     SalonReport getSalonReport(Long salonId);
 
     List<Booking> getBookingsByDate(LocalDate date,Long salonId);
+
+    List<Booking> getBookingsByDate(LocalDate date, Long salonId, Collection<BookingStatus> statuses);
+
+    /** Solo inicio y fin de las reservas del día con esos estados (sin hidratar entidades) */
+    List<BookedSlotsDTO> getBookedSlots(LocalDate date, Long salonId, Collection<BookingStatus> statuses);
+
+    /**
+     * Por cada día de [from, to]: huecos libres del salón y horas de inicio
+     * (cada stepMinutes desde la apertura) donde cabe durationMinutes.
+     */
+    List<AvailableSlotsDTO> getAvailableSlots(SalonDTO salon, LocalDate from, LocalDate to,
+            int durationMinutes, int stepMinutes);
 }
@@ -0,0 +1,277 @@
+package com.zosh.service.clients;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zosh.exception.UserException;
+import com.zosh.metrics.BookingMetrics;
+import com.zosh.payload.dto.SalonDTO;
+import com.zosh.payload.dto.ServiceOfferingDTO;
+import com.zosh.payload.dto.UserDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Caché en memoria (Caffeine) delante de los Feign de SALON, service-offering y USER.
+ *
+ * Cada caché tiene tamaño máximo y TTL propios, se puede invalidar por entidad
+ * (ver {@link LookupCacheEndpoint}) y publica hits/misses en el actuator
+ * como métricas cache.gets / cache.evictions con tag cache=nombre.
+ *
+ * Las llamadas pasan por {@link RemoteCallGuard} (bulkhead, circuit breaker, hedging).
+ * Las entradas vencidas de salones y servicios se conservan hasta stale-ttl-seconds: si el
+ * servicio no está disponible (breaker abierto, bulkhead lleno, timeout, 5xx) se responde con ellas.
+ *
+ * users y salonsByOwner van por JWT (resultado de autenticación): nunca se sirven vencidas
+ * y ninguna entrada dura más que el exp del token.
+ */
+@Slf4j
+@Component
+public class CachedLookupClient {
+
+    public static final String SALONS = "salons";
+    public static final String SALONS_BY_OWNER = "salonsByOwner";
+    public static final String SERVICES = "serviceOfferings";
+    public static final String USERS = "users";
+
+    private final SalonFeignClient salonService;
+    private final ServiceOfferingFeignClient serviceOfferingService;
+    private final UserFeignClient userService;
+    private final RemoteCallGuard guard;
+    private final BookingMetrics metrics;
+
+    private final Cache<Long, Entry<SalonDTO>> salons;
+    private final Cache<String, Entry<SalonDTO>> salonsByOwner;
+    private final Cache<Long, Entry<ServiceOfferingDTO>> services;
+    private final Cache<String, Entry<UserDTO>> users;
+
+    private final long salonsTtlNanos;
+    private final long servicesTtlNanos;
+    private final long usersTtlNanos;
+    private final long salonsByOwnerTtlNanos;
+
+    public CachedLookupClient(SalonFeignClient salonService,
+            ServiceOfferingFeignClient serviceOfferingService,
+            UserFeignClient userService,
+            RemoteCallGuard guard,
+            BookingMetrics metrics,
+            MeterRegistry meterRegistry,
+            @Value("${booking.cache.salons.max-size:5000}") long salonsMaxSize,
+            @Value("${booking.cache.salons.ttl-seconds:600}") long salonsTtl,
+            @Value("${booking.cache.services.max-size:20000}") long servicesMaxSize,
+            @Value("${booking.cache.services.ttl-seconds:600}") long servicesTtl,
+            @Value("${booking.cache.users.max-size:10000}") long usersMaxSize,
+            @Value("${booking.cache.users.ttl-seconds:60}") long usersTtl,
+            @Value("${booking.cache.salons-by-owner.max-size:5000}") long salonsByOwnerMaxSize,
+            @Value("${booking.cache.salons-by-owner.ttl-seconds:60}") long salonsByOwnerTtl,
+            @Value("${booking.cache.stale-ttl-seconds:3600}") long staleTtl) {
+        this.salonService = salonService;
+        this.serviceOfferingService = serviceOfferingService;
+        this.userService = userService;
+        this.guard = guard;
+        this.metrics = metrics;
+
+        this.salons = build(meterRegistry, SALONS, salonsMaxSize, Math.max(salonsTtl, staleTtl));
+        this.salonsByOwner = build(meterRegistry, SALONS_BY_OWNER, salonsByOwnerMaxSize, salonsByOwnerTtl);
+        this.services = build(meterRegistry, SERVICES, servicesMaxSize, Math.max(servicesTtl, staleTtl));
+        this.users = build(meterRegistry, USERS, usersMaxSize, usersTtl);
+
+        this.salonsTtlNanos = Duration.ofSeconds(salonsTtl).toNanos();
+        this.servicesTtlNanos = Duration.ofSeconds(servicesTtl).toNanos();
+        this.usersTtlNanos = Duration.ofSeconds(usersTtl).toNanos();
+        this.salonsByOwnerTtlNanos = Duration.ofSeconds(salonsByOwnerTtl).toNanos();
+    }
+
+    private static <K, V> Cache<K, V> build(MeterRegistry registry, String name, long maxSize, long ttlSeconds) {
+        Cache<K, V> cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        return CaffeineCacheMetrics.monitor(registry, cache, name);
+    }
+
+    /**
+     * Valor y momento en que se leyó del servicio; vigente durante el TTL de su caché
+     * y, si viene de un JWT, solo hasta su exp (notAfterMillis).
+     */
+    private record Entry<V>(V value, long loadedAt, long notAfterMillis) {
+
+        static <V> Entry<V> of(V value) {
+            return new Entry<>(value, System.nanoTime(), Long.MAX_VALUE);
+        }
+
+        static <V> Entry<V> forToken(V value, String jwt) {
+            return new Entry<>(value, System.nanoTime(), JwtExpiry.epochMillis(jwt));
+        }
+
+        boolean isFresh(long ttlNanos) {
+            return System.nanoTime() - loadedAt < ttlNanos && System.currentTimeMillis() < notAfterMillis;
+        }
+    }
+
+    /* ───────────────────────────── LECTURAS ───────────────────────────── */
+
+    public SalonDTO getSalonById(Long salonId, String jwt) throws Exception {
+        Entry<SalonDTO> cached = salons.getIfPresent(salonId);
+        if (cached != null && cached.isFresh(salonsTtlNanos)) {
+            return cached.value();
+        }
+        SalonDTO salon;
+        try {
+            salon = fetch(RemoteCallGuard.SALON,
+                    () -> salonService.getSalonById(salonId, jwt).getBody());
+        } catch (RuntimeException e) {
+            return stale(RemoteCallGuard.SALON, cached, e);
+        }
+        if (salon != null) {
+            salons.put(salonId, Entry.of(salon));
+        }
+        return salon;
+    }
+
+    /** Salón del dueño del JWT; un 404 (sin salón) no se cachea y se propaga igual que antes */
+    public SalonDTO getSalonByOwner(String jwt) throws Exception {
+        Entry<SalonDTO> cached = salonsByOwner.getIfPresent(jwt);
+        if (cached != null && cached.isFresh(salonsByOwnerTtlNanos)) {
+            return cached.value();
+        }
+        // depende de quién es el dueño del token: sin respaldo vencido
+        SalonDTO salon = fetch(RemoteCallGuard.SALON,
+                () -> salonService.getSalonByOwner(jwt).getBody());
+        if (salon != null) {
+            salonsByOwner.put(jwt, Entry.forToken(salon, jwt));
+            if (salon.getId() != null) {
+                salons.put(salon.getId(), Entry.of(salon));
+            }
+        }
+        return salon;
+    }
+
+    /** Solo pide a service-offering los IDs que no están en caché (o vencieron), en una sola llamada */
+    public Set<ServiceOfferingDTO> getServicesByIds(Set<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new HashSet<>();
+        }
+
+        Map<Long, ServiceOfferingDTO> found = new HashMap<>();
+        Map<Long, ServiceOfferingDTO> staleFound = new HashMap<>();
+        services.getAllPresent(ids).forEach((id, entry) ->
+                (entry.isFresh(servicesTtlNanos) ? found : staleFound).put(id, entry.value()));
+
+        Set<Long> missing = new LinkedHashSet<>(ids);
+        missing.removeAll(found.keySet());
+
+        if (!missing.isEmpty()) {
+            Set<ServiceOfferingDTO> fetched;
+            try {
+                fetched = fetch(RemoteCallGuard.SERVICE_OFFERING,
+                        () -> serviceOfferingService.getServicesByIds(missing).getBody());
+            } catch (RuntimeException e) {
+                // sin servicio: sirve lo vencido solo si está todo lo que faltaba
+                if (!RemoteCallGuard.isUnavailable(e) || !staleFound.keySet().containsAll(missing)) {
+                    throw e;
+                }
+                metrics.countRemoteEvent(RemoteCallGuard.SERVICE_OFFERING, "stale_fallback");
+                log.warn("service-offering no disponible ({}), {} servicios desde caché vencida",
+                        e.getClass().getSimpleName(), missing.size());
+                found.putAll(staleFound);
+                return new HashSet<>(found.values());
+            }
+            if (fetched != null) {
+                for (ServiceOfferingDTO service : fetched) {
+                    if (service.getId() != null) {
+                        services.put(service.getId(), Entry.of(service));
+                        found.put(service.getId(), service);
+                    }
+                }
+            }
+        }
+        return new HashSet<>(found.values());
+    }
+
+    public UserDTO getUserFromJwtToken(String jwt) throws UserException {
+        Entry<UserDTO> cached = users.getIfPresent(jwt);
+        if (cached != null && cached.isFresh(usersTtlNanos)) {
+            return cached.value();
+        }
+        // autenticación: si USER no responde se falla, nunca se responde con una entrada vencida
+        UserDTO user = fetch(RemoteCallGuard.USER,
+                () -> userService.getUserFromJwtToken(jwt).getBody());
+        if (user != null) {
+            users.put(jwt, Entry.forToken(user, jwt));
+        }
+        return user;
+    }
+
+    /** GET por el guard; los errores de Feign y resilience4j ya son unchecked y se propagan tal cual */
+    private <T> T fetch(String client, RemoteCallGuard.RemoteCall<T> call) {
+        try {
+            return guard.hedgedCall(client, call);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(client + " lookup failed", e);
+        }
+    }
+
+    private <V> V stale(String client, Entry<V> cached, RuntimeException e) {
+        if (cached == null || !RemoteCallGuard.isUnavailable(e)) {
+            throw e;
+        }
+        metrics.countRemoteEvent(client, "stale_fallback");
+        log.warn("{} no disponible ({}), respondiendo desde caché vencida", client, e.getClass().getSimpleName());
+        return cached.value();
+    }
+
+    /* ───────────────────────────── INVALIDACIÓN ───────────────────────────── */
+
+    public void evictSalon(Long salonId) {
+        salons.invalidate(salonId);
+        salonsByOwner.asMap().values().removeIf(e -> salonId.equals(e.value().getId()));
+    }
+
+    public void evictService(Long serviceId) {
+        services.invalidate(serviceId);
+    }
+
+    /** Las entradas van por JWT: se buscan por el id del usuario (o del dueño del salón) */
+    public void evictUser(Long userId) {
+        users.asMap().values().removeIf(e -> e.value() != null && userId.equals(e.value().getId()));
+        salonsByOwner.asMap().values().removeIf(e -> e.value() != null && userId.equals(e.value().getOwnerId()));
+    }
+
+    public void evictAll(String cacheName) {
+        switch (cacheName) {
+            case SALONS -> salons.invalidateAll();
+            case SALONS_BY_OWNER -> salonsByOwner.invalidateAll();
+            case SERVICES -> services.invalidateAll();
+            case USERS -> users.invalidateAll();
+            default -> throw new IllegalArgumentException("Unknown cache: " + cacheName);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put(SALONS, describe(salons));
+        stats.put(SALONS_BY_OWNER, describe(salonsByOwner));
+        stats.put(SERVICES, describe(services));
+        stats.put(USERS, describe(users));
+        return stats;
+    }
+
+    private static Map<String, Object> describe(Cache<?, ?> cache) {
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("size", cache.estimatedSize());
+        info.put("hitRate", cache.stats().hitRate());
+        info.put("hits", cache.stats().hitCount());
+        info.put("misses", cache.stats().missCount());
+        info.put("evictions", cache.stats().evictionCount());
+        return info;
+    }
+}
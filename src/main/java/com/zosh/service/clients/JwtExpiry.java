@@ -0,0 +1,36 @@
+package com.zosh.service.clients;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.Base64;
+
+/**
+ * Lee el claim exp de un JWT para acotar cuánto se cachea lo resuelto con él. No verifica
+ * la firma: eso lo hizo el servicio USER al responder.
+ */
+final class JwtExpiry {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private JwtExpiry() {
+    }
+
+    /** exp en milisegundos epoch; 0 (no cachear) si el token no trae un exp legible */
+    static long epochMillis(String jwt) {
+        if (jwt == null) {
+            return 0L;
+        }
+        String token = jwt.startsWith("Bearer ") ? jwt.substring(7).trim() : jwt.trim();
+        String[] parts = token.split("\\.");
+        if (parts.length < 2) {
+            return 0L;
+        }
+        try {
+            JsonNode exp = MAPPER.readTree(Base64.getUrlDecoder().decode(parts[1])).get("exp");
+            return exp != null && exp.canConvertToLong() ? exp.asLong() * 1000L : 0L;
+        } catch (Exception e) {
+            return 0L;
+        }
+    }
+}
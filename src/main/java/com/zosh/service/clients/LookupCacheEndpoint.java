@@ -0,0 +1,49 @@
+package com.zosh.service.clients;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * lookupcache
+ *   stats                        → tamaño y hit rate de cada caché
+ *   evictAll(cache)              → vacía una caché completa
+ *   evict(cache, key)            → invalida una sola entidad (salón, servicio o usuario por id;
+ *                                  en users y salonsByOwner el id es el del usuario / dueño)
+ *
+ * Solo se publica por JMX (con spring.jmx.enabled): /actuator no tiene autenticación
+ * y este endpoint puede vaciar las cachés.
+ */
+@Component
+@Endpoint(id = "lookupcache")
+@RequiredArgsConstructor
+public class LookupCacheEndpoint {
+
+    private final CachedLookupClient cachedLookupClient;
+
+    @ReadOperation
+    public Map<String, Object> stats() {
+        return cachedLookupClient.stats();
+    }
+
+    @DeleteOperation
+    public void evictAll(@Selector String cache) {
+        cachedLookupClient.evictAll(cache);
+    }
+
+    @DeleteOperation
+    public void evict(@Selector String cache, @Selector String key) {
+        switch (cache) {
+            case CachedLookupClient.SALONS -> cachedLookupClient.evictSalon(Long.valueOf(key));
+            case CachedLookupClient.SERVICES -> cachedLookupClient.evictService(Long.valueOf(key));
+            case CachedLookupClient.USERS, CachedLookupClient.SALONS_BY_OWNER ->
+                    cachedLookupClient.evictUser(Long.valueOf(key));
+            default -> throw new IllegalArgumentException("Unknown cache: " + cache);
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.zosh.domain.PaymentMethod;
 import com.zosh.exception.UserException;
 import com.zosh.modal.Booking;
 import com.zosh.payload.dto.BookingDTO;
+import com.zosh.payload.request.GroupPaymentRequest;
 import com.zosh.payload.response.PaymentLinkResponse;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.ResponseEntity;
@@ -16,10 +17,43 @@ import org.springframework.web.bind.annotation.RequestParam;
 @FeignClient("payment")
 public interface PaymentFeignClient {
 
+    String SERVICE_TOKEN_HEADER = "X-Service-Token";
+
     @PostMapping("/api/payments/create")
     public ResponseEntity<PaymentLinkResponse> createPaymentLink(
             @RequestHeader("Authorization") String jwt,
             @RequestBody Booking booking,
             @RequestParam PaymentMethod paymentMethod) throws UserException,
             RazorpayException;
+
+    /**
+     * Igual que createPaymentLink, llamado por booking-service sin el JWT del cliente
+     * (checkout asíncrono). Endpoint nuevo del servicio payment (contrato entre servicios):
+     *   autenticación  header X-Service-Token con booking.payment-link.service-token;
+     *                  no acepta JWT de usuario
+     *   cliente        customerId (el de la reserva), ya no se deduce de un JWT
+     *   cuerpo y respuesta iguales a /api/payments/create
+     */
+    @PostMapping("/api/payments/internal/create")
+    public ResponseEntity<PaymentLinkResponse> createPaymentLinkAsService(
+            @RequestHeader(SERVICE_TOKEN_HEADER) String serviceToken,
+            @RequestParam Long customerId,
+            @RequestBody Booking booking,
+            @RequestParam PaymentMethod paymentMethod) throws RazorpayException;
+
+    /**
+     * Un solo link por el total de un alta masiva. Endpoint nuevo del servicio payment
+     * (contrato entre servicios):
+     *   cuerpo    GroupPaymentRequest: groupId, customerId, salonId, bookingIds, totalPrice,
+     *             startTime (la primera reserva) y endTime (la última)
+     *   respuesta PaymentLinkResponse, igual que /api/payments/create
+     *   callback  el PaymentOrder que llega a booking-queue trae bookingId = groupId; como
+     *             groupId sale de bookings_seq no coincide con el id de ninguna reserva
+     */
+    @PostMapping("/api/payments/create/group")
+    public ResponseEntity<PaymentLinkResponse> createGroupPaymentLink(
+            @RequestHeader("Authorization") String jwt,
+            @RequestBody GroupPaymentRequest request,
+            @RequestParam PaymentMethod paymentMethod) throws UserException,
+            RazorpayException;
 }
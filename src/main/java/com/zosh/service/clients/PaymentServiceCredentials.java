@@ -0,0 +1,32 @@
+package com.zosh.service.clients;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Credencial de servicio a servicio para pedir links de pago fuera del request del cliente
+ * (PaymentLinkWorker). El JWT del cliente no se guarda en el outbox ni viaja por la cola:
+ * se usa el endpoint de servicio de pagos (PaymentFeignClient.createPaymentLinkAsService),
+ * no /api/payments/create, que sigue autenticando al cliente.
+ */
+@Component
+public class PaymentServiceCredentials {
+
+    private final String serviceToken;
+
+    public PaymentServiceCredentials(@Value("${booking.payment-link.service-token:}") String serviceToken) {
+        this.serviceToken = serviceToken;
+    }
+
+    public boolean isConfigured() {
+        return serviceToken != null && !serviceToken.isBlank();
+    }
+
+    /** Valor del header X-Service-Token para PaymentFeignClient.createPaymentLinkAsService */
+    public String token() {
+        if (!isConfigured()) {
+            throw new IllegalStateException("booking.payment-link.service-token is not configured");
+        }
+        return serviceToken;
+    }
+}
@@ -0,0 +1,172 @@
+package com.zosh.service.clients;
+
+import com.zosh.metrics.BookingMetrics;
+import feign.FeignException;
+import feign.RetryableException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.core.functions.CheckedSupplier;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Protección por cliente remoto (salon, user, service-offering, payment).
+ *
+ * Cada llamada pasa por un bulkhead de semáforo (límite de llamadas concurrentes, así un
+ * servicio lento no ocupa todos los hilos de Tomcat) y por un circuit breaker; ambos se
+ * configuran en resilience4j.* del application.yml y publican sus métricas
+ * (resilience4j.circuitbreaker.*, resilience4j.bulkhead.*). Los timeouts por llamada son
+ * los de Feign (spring.cloud.openfeign.client.config).
+ *
+ * Los GET idempotentes pueden ir "hedged": si la primera llamada no respondió en
+ * hedge-delay-ms se lanza una segunda y gana la primera que responda bien.
+ */
+@Component
+public class RemoteCallGuard {
+
+    public static final String SALON = "salon";
+    public static final String USER = "user";
+    public static final String SERVICE_OFFERING = "service-offering";
+    public static final String PAYMENT = "payment";
+
+    private final CircuitBreakerRegistry circuitBreakers;
+    private final BulkheadRegistry bulkheads;
+    private final TaskExecutor hedgeExecutor;
+    private final BookingMetrics metrics;
+
+    @Value("${booking.resilience.hedge.enabled:false}")
+    private boolean hedgeEnabled;
+
+    @Value("${booking.resilience.hedge.delay-ms:300}")
+    private long hedgeDelayMs;
+
+    public RemoteCallGuard(CircuitBreakerRegistry circuitBreakers,
+            BulkheadRegistry bulkheads,
+            @Qualifier("hedgeExecutor") TaskExecutor hedgeExecutor,
+            BookingMetrics metrics) {
+        this.circuitBreakers = circuitBreakers;
+        this.bulkheads = bulkheads;
+        this.hedgeExecutor = hedgeExecutor;
+        this.metrics = metrics;
+    }
+
+    @FunctionalInterface
+    public interface RemoteCall<T> {
+        T call() throws Exception;
+    }
+
+    /** Llamada a través del bulkhead y el circuit breaker del cliente */
+    public <T> T call(String client, RemoteCall<T> call) throws Exception {
+        Bulkhead bulkhead = bulkheads.bulkhead(client);
+        CircuitBreaker circuitBreaker = circuitBreakers.circuitBreaker(client);
+        CheckedSupplier<T> guarded = CircuitBreaker.decorateCheckedSupplier(circuitBreaker,
+                Bulkhead.decorateCheckedSupplier(bulkhead, call::call));
+        try {
+            return guarded.get();
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    /** Igual que {@link #call} pero con una segunda llamada si la primera tarda (solo GET idempotentes) */
+    public <T> T hedgedCall(String client, RemoteCall<T> call) throws Exception {
+        if (!hedgeEnabled) {
+            return call(client, call);
+        }
+
+        CompletableFuture<T> primary;
+        try {
+            primary = submit(client, call);
+        } catch (TaskRejectedException e) {
+            return call(client, call);
+        }
+
+        try {
+            return primary.get(hedgeDelayMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException slow) {
+            // sigue abajo con la segunda llamada
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+
+        CompletableFuture<T> backup;
+        try {
+            backup = submit(client, call);
+        } catch (TaskRejectedException e) {
+            return await(primary);
+        }
+
+        // gana la primera que responda bien; si fallan las dos, el error de la última
+        CompletableFuture<T> winner = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        primary.whenComplete((value, error) -> settle(winner, failures, value, error, client, "primary"));
+        backup.whenComplete((value, error) -> settle(winner, failures, value, error, client, "backup"));
+        return await(winner);
+    }
+
+    private <T> CompletableFuture<T> submit(String client, RemoteCall<T> call) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return call(client, call);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, hedgeExecutor);
+    }
+
+    private <T> void settle(CompletableFuture<T> winner, AtomicInteger failures, T value, Throwable error,
+            String client, String attempt) {
+        if (error == null) {
+            if (winner.complete(value)) {
+                metrics.countRemoteEvent(client, "hedge_won_" + attempt);
+            }
+        } else if (failures.incrementAndGet() == 2) {
+            winner.completeExceptionally(error);
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    private static Exception unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof Exception ex ? ex : e;
+    }
+
+    /**
+     * true si el error indica que el servicio no está disponible (breaker abierto, bulkhead
+     * lleno, timeout / conexión, 5xx) y se puede responder con datos de caché vencidos.
+     * Un 4xx es una respuesta válida del servicio y se propaga.
+     */
+    public static boolean isUnavailable(Throwable e) {
+        return e instanceof CallNotPermittedException
+                || e instanceof BulkheadFullException
+                || e instanceof RetryableException
+                || e instanceof FeignException.FeignServerException
+                || (e instanceof FeignException fe && fe.status() < 0);
+    }
+}
@@ -0,0 +1,87 @@
+package com.zosh.service.impl;
+
+import com.zosh.domain.BookingStatus;
+import com.zosh.metrics.BookingMetrics;
+import com.zosh.modal.ArchivedBooking;
+import com.zosh.modal.Booking;
+import com.zosh.repository.BookingRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Mueve a archived_bookings las reservas que empezaron hace más de horizon-days, para que
+ * bookings (checkout, slots, listados) solo tenga las recientes y futuras.
+ *
+ * Cada lote de batch-size se copia y se borra en una misma transacción. Los agregados no
+ * cambian: el reporte por salón y los rollups diarios ya las contaban, y su reconciliación
+ * suma también el archivo. Las PENDING no se archivan (las cancela PendingBookingExpiry).
+ */
+@Slf4j
+@Service
+public class BookingArchiver {
+
+    private final BookingRepository bookingRepository;
+    private final EntityManager entityManager;
+    private final BookingMetrics metrics;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${booking.archive.horizon-days:365}")
+    private long horizonDays;
+
+    @Value("${booking.archive.batch-size:500}")
+    private int batchSize;
+
+    public BookingArchiver(BookingRepository bookingRepository,
+            EntityManager entityManager,
+            BookingMetrics metrics,
+            PlatformTransactionManager transactionManager) {
+        this.bookingRepository = bookingRepository;
+        this.entityManager = entityManager;
+        this.metrics = metrics;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(cron = "${booking.archive.cron:0 0 4 * * *}")
+    public void archiveAll() {
+        LocalDateTime cutoff = LocalDate.now().minusDays(horizonDays).atStartOfDay();
+        int total = 0;
+        int moved;
+        do {
+            Integer result = transactionTemplate.execute(tx -> archiveBatch(cutoff));
+            moved = result != null ? result : 0;
+            metrics.countArchived(moved);
+            total += moved;
+        } while (moved == batchSize);
+        log.info("Reservas archivadas (inicio anterior a {}): {}", cutoff, total);
+    }
+
+    /** Devuelve cuántas reservas se movieron */
+    int archiveBatch(LocalDateTime cutoff) {
+        List<Long> ids = bookingRepository.findIdsStartedBefore(cutoff, BookingStatus.PENDING, Limit.of(batchSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<Booking> bookings = bookingRepository.findByIdIn(ids);
+
+        // persist y no save: con id asignado, save haría un SELECT por fila (merge)
+        LocalDateTime now = LocalDateTime.now();
+        for (Booking booking : bookings) {
+            entityManager.persist(ArchivedBooking.of(booking, now));
+        }
+        // borra también sus filas de booking_service_ids; INSERT y DELETE van en lotes JDBC
+        bookingRepository.deleteAll(bookings);
+        entityManager.flush();
+        entityManager.clear();
+        return bookings.size();
+    }
+}
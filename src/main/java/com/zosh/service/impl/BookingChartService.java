@@ -1,10 +1,16 @@
 package com.zosh.service.impl;
 
 import com.zosh.domain.BookingStatus;
+import com.zosh.domain.ChartGranularity;
 import com.zosh.modal.Booking;
+import com.zosh.modal.BookingDailyRollup;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.TemporalAdjusters;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -13,57 +19,69 @@ public class BookingChartService {
 
     /** Ingresos diarios (agrupados) */
     public List<Map<String, Object>> generateEarningsChartData(List<Booking> bookings) {
-        System.out.println("📊 EARNINGS CHART - Total bookings recibidos: " + bookings.size());
-
         // Solo excluir CANCELLED para earnings
-        List<Booking> validBookings = bookings.stream()
+        Map<String, BigDecimal> earningsByDay = bookings.stream()
                 .filter(b -> b.getStatus() != BookingStatus.CANCELLED)
-                .collect(Collectors.toList());
-
-        System.out.println("📊 EARNINGS CHART - Bookings válidos (no cancelados): " + validBookings.size());
-
-        Map<String, BigDecimal> earningsByDay = validBookings.stream()
                 .collect(Collectors.groupingBy(
                         b -> b.getStartTime().toLocalDate().toString(),
                         Collectors.mapping(
                                 Booking::getTotalPrice,
                                 Collectors.reducing(BigDecimal.ZERO, BigDecimal::add))));
 
-        System.out.println("📊 EARNINGS CHART - Días con ingresos: " + earningsByDay.size());
-        earningsByDay.forEach((date, amount) -> System.out.println("   " + date + ": $" + amount));
-
         return convertToChartData(earningsByDay, "daily", "earnings");
     }
 
     /** Número de reservas confirmadas por día */
     public List<Map<String, Object>> generateBookingCountChartData(List<Booking> bookings) {
-        System.out.println("📊 BOOKING COUNT CHART - Total bookings recibidos: " + bookings.size());
-
         // Incluir PENDING, CONFIRMED, SUCCESS - solo excluir CANCELLED
-        List<Booking> validBookings = bookings.stream()
+        Map<String, Long> countsByDay = bookings.stream()
                 .filter(b -> b.getStatus() != BookingStatus.CANCELLED)
-                .collect(Collectors.toList());
-
-        System.out.println("📊 BOOKING COUNT CHART - Bookings válidos: " + validBookings.size());
-
-        // Debug: mostrar estados de las reservas
-        Map<BookingStatus, Long> statusCounts = bookings.stream()
-                .collect(Collectors.groupingBy(Booking::getStatus, Collectors.counting()));
-
-        System.out.println("📊 BOOKING COUNT CHART - Estados de reservas:");
-        statusCounts.forEach((status, count) -> System.out.println("   " + status + ": " + count));
-
-        Map<String, Long> countsByDay = validBookings.stream()
                 .collect(Collectors.groupingBy(
                         b -> b.getStartTime().toLocalDate().toString(),
                         Collectors.counting()));
 
-        System.out.println("📊 BOOKING COUNT CHART - Días con reservas: " + countsByDay.size());
-        countsByDay.forEach((date, count) -> System.out.println("   " + date + ": " + count + " reservas"));
-
         return convertToChartData(countsByDay, "daily", "count");
     }
 
+    /** Ingresos por día / semana / mes a partir de los rollups (excluye CANCELLED) */
+    public List<Map<String, Object>> generateEarningsChartData(
+            List<BookingDailyRollup> rollups, ChartGranularity granularity) {
+
+        Map<String, BigDecimal> earnings = new HashMap<>();
+        for (BookingDailyRollup r : rollups) {
+            if (r.getStatus() == BookingStatus.CANCELLED || r.getBookingCount() == 0)
+                continue;
+            earnings.merge(bucket(r.getDay(), granularity), r.getEarnings(), BigDecimal::add);
+        }
+        return convertToChartData(earnings, period(granularity), "earnings");
+    }
+
+    /** Reservas por día / semana / mes a partir de los rollups (excluye CANCELLED) */
+    public List<Map<String, Object>> generateBookingCountChartData(
+            List<BookingDailyRollup> rollups, ChartGranularity granularity) {
+
+        Map<String, Long> counts = new HashMap<>();
+        for (BookingDailyRollup r : rollups) {
+            if (r.getStatus() == BookingStatus.CANCELLED || r.getBookingCount() == 0)
+                continue;
+            counts.merge(bucket(r.getDay(), granularity), r.getBookingCount(), Long::sum);
+        }
+        return convertToChartData(counts, period(granularity), "count");
+    }
+
+    /** Clave ordenable del período: 2024-05-13 (día), lunes de la semana ISO, o 2024-05 (mes) */
+    private String bucket(LocalDate day, ChartGranularity granularity) {
+        return switch (granularity) {
+            case DAILY -> day.toString();
+            case WEEKLY -> day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).toString();
+            case MONTHLY -> YearMonth.from(day).toString();
+        };
+    }
+
+    private String period(ChartGranularity granularity) {
+        return granularity.name().toLowerCase();
+    }
+
     /** Conversión genérica a formato de gráfica */
     private <T> List<Map<String, Object>> convertToChartData(
             Map<String, T> grouped, String period, String key) {
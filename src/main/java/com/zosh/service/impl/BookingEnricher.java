@@ -0,0 +1,132 @@
+package com.zosh.service.impl;
+
+import com.zosh.mapper.BookingMapper;
+import com.zosh.modal.Booking;
+import com.zosh.payload.dto.BookingDTO;
+import com.zosh.payload.dto.SalonDTO;
+import com.zosh.payload.dto.ServiceOfferingDTO;
+import com.zosh.payload.response.NormalizedBookingsResponse;
+import com.zosh.service.clients.CachedLookupClient;
+import com.zosh.metrics.BookingMetrics;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Convierte listas de reservas a DTO enriquecidos con servicios y salón.
+ *
+ * En lugar de dos llamadas Feign por reserva, junta los IDs distintos de toda la
+ * lista, los pide una sola vez (servicios en bloques vía /list/{ids}, un GET por salón
+ * distinto, ambos pasando por la caché) y arma los DTO en memoria.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookingEnricher {
+
+    private final CachedLookupClient lookupClient;
+    private final BookingMetrics metrics;
+
+    /** Máximo de IDs por llamada a /api/service-offering/list/{ids} (limita el largo de la URL) */
+    @Value("${booking.enrichment.max-ids-per-call:100}")
+    private int maxIdsPerCall;
+
+    public List<BookingDTO> toDTOs(List<Booking> bookings, String jwt) {
+        if (bookings.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<Long, ServiceOfferingDTO> services = fetchServices(bookings);
+        Map<Long, SalonDTO> salons = fetchSalons(bookings, jwt);
+        metrics.recordEnrichmentBatch(bookings.size(), services.size(), salons.size());
+        if (log.isDebugEnabled() && metrics.sampled()) {
+            log.debug("Enriquecidas {} reservas con {} servicios y {} salones",
+                    bookings.size(), services.size(), salons.size());
+        }
+
+        List<BookingDTO> dtos = new ArrayList<>(bookings.size());
+        for (Booking booking : bookings) {
+            Set<ServiceOfferingDTO> bookingServices = new HashSet<>();
+            if (booking.getServiceIds() != null) {
+                for (Long serviceId : booking.getServiceIds()) {
+                    ServiceOfferingDTO service = services.get(serviceId);
+                    if (service != null) {
+                        bookingServices.add(service);
+                    }
+                }
+            }
+            dtos.add(BookingMapper.toDTO(booking, bookingServices, salons.get(booking.getSalonId()), null));
+        }
+        return dtos;
+    }
+
+    /** Mismos lookups que toDTOs, sin embeber salón ni servicios en cada reserva */
+    public NormalizedBookingsResponse toNormalized(List<Booking> bookings, String jwt) {
+        if (bookings.isEmpty()) {
+            return new NormalizedBookingsResponse(Collections.emptyList(), Collections.emptyMap(),
+                    Collections.emptyMap());
+        }
+
+        Map<Long, ServiceOfferingDTO> services = fetchServices(bookings);
+        Map<Long, SalonDTO> salons = fetchSalons(bookings, jwt);
+        metrics.recordEnrichmentBatch(bookings.size(), services.size(), salons.size());
+
+        List<BookingDTO> dtos = new ArrayList<>(bookings.size());
+        for (Booking booking : bookings) {
+            dtos.add(BookingMapper.toDTO(booking, null, null, null));
+        }
+        return new NormalizedBookingsResponse(dtos, salons, services);
+    }
+
+    private Map<Long, ServiceOfferingDTO> fetchServices(List<Booking> bookings) {
+        Set<Long> ids = new LinkedHashSet<>();
+        for (Booking booking : bookings) {
+            if (booking.getServiceIds() != null) {
+                ids.addAll(booking.getServiceIds());
+            }
+        }
+
+        Map<Long, ServiceOfferingDTO> byId = new HashMap<>();
+        List<Long> pending = new ArrayList<>(ids);
+        for (int from = 0; from < pending.size(); from += maxIdsPerCall) {
+            Set<Long> chunk = new LinkedHashSet<>(
+                    pending.subList(from, Math.min(from + maxIdsPerCall, pending.size())));
+            try {
+                Set<ServiceOfferingDTO> found = lookupClient.getServicesByIds(chunk);
+                if (found != null) {
+                    found.stream()
+                            .filter(s -> s.getId() != null)
+                            .forEach(s -> byId.put(s.getId(), s));
+                }
+            } catch (Exception e) {
+                log.warn("Error obteniendo servicios {}: {}", chunk, e.getMessage());
+            }
+        }
+        return byId;
+    }
+
+    private Map<Long, SalonDTO> fetchSalons(List<Booking> bookings, String jwt) {
+        Set<Long> ids = new LinkedHashSet<>();
+        for (Booking booking : bookings) {
+            if (booking.getSalonId() != null) {
+                ids.add(booking.getSalonId());
+            }
+        }
+
+        Map<Long, SalonDTO> byId = new HashMap<>();
+        for (Long salonId : ids) {
+            try {
+                SalonDTO salon = lookupClient.getSalonById(salonId, jwt);
+                if (salon != null) {
+                    byId.put(salonId, salon);
+                }
+            } catch (Exception e) {
+                log.warn("Error obteniendo salón {}: {}", salonId, e.getMessage());
+            }
+        }
+        return byId;
+    }
+}
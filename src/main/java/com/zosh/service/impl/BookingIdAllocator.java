@@ -0,0 +1,27 @@
+package com.zosh.service.impl;
+
+import com.zosh.modal.Booking;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Ids tomados del mismo generador que Booking.id (bookings_seq, optimizador pooled): no chocan
+ * con ningún id de reserva y en general salen del bloque ya reservado, sin ir a la BD.
+ */
+@Component
+@RequiredArgsConstructor
+public class BookingIdAllocator {
+
+    private final EntityManager entityManager;
+
+    public Long next() {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        IdentifierGenerator generator = (IdentifierGenerator) session.getFactory().getMappingMetamodel()
+                .getEntityDescriptor(Booking.class)
+                .getGenerator();
+        return ((Number) generator.generate(session, null)).longValue();
+    }
+}
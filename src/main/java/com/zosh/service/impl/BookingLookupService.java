@@ -0,0 +1,110 @@
+package com.zosh.service.impl;
+
+import com.zosh.metrics.BookingMetrics;
+import com.zosh.payload.dto.SalonDTO;
+import com.zosh.payload.dto.ServiceOfferingDTO;
+import com.zosh.payload.dto.UserDTO;
+import com.zosh.service.clients.CachedLookupClient;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Datos remotos que necesita una reserva antes de guardarse (usuario, salón y servicios).
+ * Las tres llamadas son independientes: se lanzan a la vez con un único timeout,
+ * así la latencia es la de la llamada más lenta y no la suma.
+ */
+@Service
+public class BookingLookupService {
+
+    private final CachedLookupClient lookupClient;
+    private final TaskExecutor remoteCallExecutor;
+    private final BookingMetrics metrics;
+
+    @Value("${booking.checkout.lookup-timeout-ms:5000}")
+    private long lookupTimeoutMs;
+
+    public BookingLookupService(CachedLookupClient lookupClient,
+            @Qualifier("remoteCallExecutor") TaskExecutor remoteCallExecutor,
+            BookingMetrics metrics) {
+        this.lookupClient = lookupClient;
+        this.remoteCallExecutor = remoteCallExecutor;
+        this.metrics = metrics;
+    }
+
+    public record CheckoutLookup(UserDTO user, SalonDTO salon, Set<ServiceOfferingDTO> services) {
+    }
+
+    public CheckoutLookup fetch(String jwt, Long salonId, Set<Long> serviceIds) throws Exception {
+        List<CompletableFuture<?>> started = new ArrayList<>(3);
+        CompletableFuture<UserDTO> user;
+        CompletableFuture<SalonDTO> salon;
+        CompletableFuture<Set<ServiceOfferingDTO>> services;
+        try {
+            user = start(started, () -> lookupClient.getUserFromJwtToken(jwt));
+            salon = start(started, () -> lookupClient.getSalonById(salonId, jwt));
+            services = start(started, () -> lookupClient.getServicesByIds(serviceIds));
+        } catch (RejectedExecutionException e) {
+            // pool y cola llenos: se falla enseguida en vez de esperar en el hilo del request
+            cancelAll(started);
+            metrics.countRemoteEvent("checkout_lookup", "rejected");
+            throw new Exception("Too many concurrent checkouts, retry later");
+        }
+
+        try {
+            CompletableFuture.allOf(user, salon, services).get(lookupTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            cancelAll(started);
+            throw new Exception("Timed out fetching user, salon and services after " + lookupTimeoutMs + " ms");
+        } catch (ExecutionException e) {
+            cancelAll(started);
+            Throwable cause = e.getCause() instanceof CompletionException ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof Exception ex) {
+                throw ex;
+            }
+            throw e;
+        }
+
+        return new CheckoutLookup(user.join(), salon.join(), services.join());
+    }
+
+    /**
+     * Cancela cada llamada, no el allOf (cancelarlo no toca a las hijas). Las que siguen en la
+     * cola ya no se ejecutan; las que están en curso terminan por el timeout de Feign.
+     */
+    private static void cancelAll(List<CompletableFuture<?>> futures) {
+        futures.forEach(f -> f.cancel(true));
+    }
+
+    private <T> CompletableFuture<T> start(List<CompletableFuture<?>> started, RemoteCall<T> call) {
+        CompletableFuture<T> future = supply(call);
+        started.add(future);
+        return future;
+    }
+
+    @FunctionalInterface
+    private interface RemoteCall<T> {
+        T call() throws Exception;
+    }
+
+    private <T> CompletableFuture<T> supply(RemoteCall<T> call) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return call.call();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, remoteCallExecutor);
+    }
+}
@@ -0,0 +1,226 @@
+package com.zosh.service.impl;
+
+import com.zosh.domain.BookingStatus;
+import com.zosh.modal.Booking;
+import com.zosh.modal.BookingDailyRollup;
+import com.zosh.repository.ArchivedBookingRepository;
+import com.zosh.repository.BookingDailyRollupRepository;
+import com.zosh.repository.BookingRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Mantiene {@link BookingDailyRollup} (salón, día, estado) con cantidad y facturación.
+ *
+ * Un salón se reconstruye completo desde sus reservas la primera vez que se consulta;
+ * a partir de ahí cada alta o cambio de estado aplica un delta en la misma transacción.
+ * Un job nocturno vuelve a reconstruir los salones para corregir desvíos.
+ */
+@Slf4j
+@Service
+public class BookingRollupService {
+
+    private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archivedRepository;
+    private final BookingDailyRollupRepository rollupRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate newTransaction;
+
+    public BookingRollupService(BookingRepository bookingRepository,
+            ArchivedBookingRepository archivedRepository,
+            BookingDailyRollupRepository rollupRepository,
+            EntityManager entityManager,
+            PlatformTransactionManager transactionManager) {
+        this.bookingRepository = bookingRepository;
+        this.archivedRepository = archivedRepository;
+        this.rollupRepository = rollupRepository;
+        this.entityManager = entityManager;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /* ───────────────────────────── ESCRITURA ───────────────────────────── */
+
+    public void onCreated(Booking booking) {
+        if (!rollupRepository.existsBySalonId(booking.getSalonId())) {
+            return; // se reconstruye completo en la primera lectura
+        }
+        apply(booking, booking.getStatus(), 1);
+    }
+
+    public void onStatusChanged(Booking booking, BookingStatus previous) {
+        if (previous == booking.getStatus() || !rollupRepository.existsBySalonId(booking.getSalonId())) {
+            return;
+        }
+        apply(booking, previous, -1);
+        apply(booking, booking.getStatus(), 1);
+    }
+
+    /**
+     * Igual para un lote que venía de previous: los deltas se suman por (salón, día, estado)
+     * y se aplica un UPDATE por fila de rollup, no dos por reserva.
+     */
+    public void onStatusChanged(Collection<Booking> bookings, BookingStatus previous) {
+        Map<Long, Boolean> tracked = new HashMap<>();
+        Map<BookingDailyRollup.Key, Long> counts = new LinkedHashMap<>();
+        Map<BookingDailyRollup.Key, BigDecimal> earnings = new HashMap<>();
+        for (Booking booking : bookings) {
+            if (previous == booking.getStatus()
+                    || !tracked.computeIfAbsent(booking.getSalonId(), rollupRepository::existsBySalonId)) {
+                continue;
+            }
+            for (int sign : new int[] { -1, 1 }) {
+                BookingDailyRollup.Key key = key(booking, sign < 0 ? previous : booking.getStatus());
+                counts.merge(key, (long) sign, Long::sum);
+                earnings.merge(key, earnings(booking, sign), BigDecimal::add);
+            }
+        }
+        counts.forEach((key, count) -> apply(key, count, earnings.get(key)));
+    }
+
+    private void apply(Booking booking, BookingStatus status, int sign) {
+        apply(key(booking, status), sign, earnings(booking, sign));
+    }
+
+    private static BookingDailyRollup.Key key(Booking booking, BookingStatus status) {
+        return new BookingDailyRollup.Key(booking.getSalonId(), booking.getStartTime().toLocalDate(),
+                status != null ? status : BookingStatus.PENDING);
+    }
+
+    private static BigDecimal earnings(Booking booking, int sign) {
+        return booking.getTotalPrice() != null
+                ? booking.getTotalPrice().multiply(BigDecimal.valueOf(sign))
+                : BigDecimal.ZERO;
+    }
+
+    private void apply(BookingDailyRollup.Key rollup, long count, BigDecimal earnings) {
+        Long salonId = rollup.getSalonId();
+        LocalDate day = rollup.getDay();
+        BookingStatus key = rollup.getStatus();
+
+        if (rollupRepository.applyDelta(salonId, day, key, count, earnings) > 0) {
+            return;
+        }
+        // fila (salón, día, estado) nueva: se inserta en cero aparte y se vuelve a aplicar
+        insertEmpty(rollup);
+        rollupRepository.applyDelta(salonId, day, key, count, earnings);
+    }
+
+    /** Inserta la fila en cero en una transacción aparte, salvo que otra ya la haya creado */
+    private void insertEmpty(BookingDailyRollup.Key key) {
+        try {
+            newTransaction.executeWithoutResult(tx -> {
+                if (!rollupRepository.existsById(key)) {
+                    entityManager.persist(empty(key));
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            // otra transacción la insertó a la vez
+        }
+    }
+
+    /** Igual para varias filas: un solo lote de INSERT; si alguna ya existía, una a una */
+    private void insertEmpty(Collection<BookingDailyRollup.Key> keys) {
+        try {
+            newTransaction.executeWithoutResult(tx -> keys.forEach(k -> entityManager.persist(empty(k))));
+        } catch (DataIntegrityViolationException e) {
+            keys.forEach(this::insertEmpty);
+        }
+    }
+
+    private static BookingDailyRollup empty(BookingDailyRollup.Key key) {
+        return BookingDailyRollup.builder()
+                .salonId(key.getSalonId())
+                .day(key.getDay())
+                .status(key.getStatus())
+                .bookingCount(0L)
+                .earnings(BigDecimal.ZERO)
+                .build();
+    }
+
+    /* ───────────────────────────── LECTURA ───────────────────────────── */
+
+    public List<BookingDailyRollup> getSeries(Long salonId, LocalDate from, LocalDate to) {
+        if (!rollupRepository.existsBySalonId(salonId)) {
+            newTransaction.executeWithoutResult(tx -> rebuild(salonId));
+        }
+        return rollupRepository.findSeries(salonId, from, to);
+    }
+
+    /* ───────────────────────────── RECONSTRUCCIÓN ───────────────────────────── */
+
+    @Scheduled(cron = "${booking.chart.rebuild-cron:0 45 3 * * *}")
+    public void rebuildAll() {
+        List<Long> salonIds = rollupRepository.findSalonIds();
+        for (Long salonId : salonIds) {
+            newTransaction.executeWithoutResult(tx -> rebuild(salonId));
+        }
+        log.info("Rollups diarios reconstruidos para {} salones", salonIds.size());
+    }
+
+    /**
+     * Deja las filas del salón con lo calculado desde sus reservas (vivas y archivadas).
+     *
+     * Las filas se bloquean antes de leer las reservas, así los deltas en curso ya están
+     * confirmados en la lectura y los siguientes esperan y se suman sobre lo corregido.
+     * Se actualizan en su lugar (sin borrar: un delta que espera no puede perder su fila);
+     * las que faltan se insertan antes en cero, por el mismo camino que usan los deltas.
+     */
+    public void rebuild(Long salonId) {
+        List<BookingDailyRollup> locked = rollupRepository.lockBySalonId(salonId);
+        Map<BookingDailyRollup.Key, BookingDailyRollup> expected = computeFromBookings(salonId);
+
+        Set<BookingDailyRollup.Key> missing = new LinkedHashSet<>(expected.keySet());
+        locked.forEach(row -> missing.remove(keyOf(row)));
+        if (!missing.isEmpty()) {
+            insertEmpty(missing);
+            locked = rollupRepository.lockBySalonId(salonId);
+            expected = computeFromBookings(salonId);
+        }
+
+        for (BookingDailyRollup row : locked) {
+            BookingDailyRollup totals = expected.get(keyOf(row));
+            row.setBookingCount(totals != null ? totals.getBookingCount() : 0L);
+            row.setEarnings(totals != null ? totals.getEarnings() : BigDecimal.ZERO);
+        }
+    }
+
+    private Map<BookingDailyRollup.Key, BookingDailyRollup> computeFromBookings(Long salonId) {
+        List<BookingRepository.RollupRow> bookings = new ArrayList<>(bookingRepository.findRollupRowsBySalonId(salonId));
+        bookings.addAll(archivedRepository.findRollupRowsBySalonId(salonId));
+
+        Map<BookingDailyRollup.Key, BookingDailyRollup> rows = new LinkedHashMap<>();
+        for (BookingRepository.RollupRow b : bookings) {
+            BookingStatus status = b.getStatus() != null ? b.getStatus() : BookingStatus.PENDING;
+            BookingDailyRollup row = rows.computeIfAbsent(
+                    new BookingDailyRollup.Key(salonId, b.getStartTime().toLocalDate(), status),
+                    BookingRollupService::empty);
+            row.setBookingCount(row.getBookingCount() + 1);
+            if (b.getTotalPrice() != null) {
+                row.setEarnings(row.getEarnings().add(b.getTotalPrice()));
+            }
+        }
+        return rows;
+    }
+
+    private static BookingDailyRollup.Key keyOf(BookingDailyRollup row) {
+        return new BookingDailyRollup.Key(row.getSalonId(), row.getDay(), row.getStatus());
+    }
+}
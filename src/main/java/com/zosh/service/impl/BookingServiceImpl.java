@@ -1,29 +1,70 @@
 package com.zosh.service.impl;
 
 import com.zosh.domain.BookingStatus;
+import com.zosh.domain.PaymentLinkStatus;
+import com.zosh.domain.PaymentMethod;
+import com.zosh.messaging.BookingOutbox;
+import com.zosh.metrics.BookingMetrics;
 import com.zosh.modal.*;
+import com.zosh.payload.dto.AvailableSlotsDTO;
+import com.zosh.payload.dto.BookedSlotsDTO;
 import com.zosh.payload.dto.SalonDTO;
 import com.zosh.payload.dto.ServiceOfferingDTO;
 import com.zosh.payload.dto.UserDTO;
+import com.zosh.payload.request.BookingCursor;
+import com.zosh.payload.request.BookingPageRequest;
 import com.zosh.payload.request.BookingRequest;
+import com.zosh.repository.ArchivedBookingRepository;
 import com.zosh.repository.BookingRepository;
 import com.zosh.service.BookingService;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 @Transactional
 public class BookingServiceImpl implements BookingService {
 
     private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archivedRepository;
+    private final BookingSlotIndex slotIndex;
+    private final SalonReportAggregator reportAggregator;
+    private final BookingRollupService rollupService;
+    private final EntityManager entityManager;
+    private final PaymentEventDeduplicator paymentDeduplicator;
+    private final BookingOutbox bookingOutbox;
+    private final BookingMetrics metrics;
+    private final SalonDayLocker salonDayLocker;
+    private final BookingIdAllocator bookingIdAllocator;
+
+    /** Oracle admite hasta 1000 elementos en un IN (...) */
+    private static final int MAX_IN_LIST = 500;
+
+    /** Una reserva cabe en el horario de un solo día: ninguna empieza antes de from - 1 día y toca la ventana */
+    private static final Duration MAX_BOOKING_SPAN = Duration.ofDays(1);
+
+    /** Las reservas nuevas no tienen id: ninguna fila queda excluida de la verificación */
+    private static final long NO_BOOKING = 0L;
 
     /* ───────────────────────────── CREATE ───────────────────────────── */
     @Override
@@ -32,9 +73,7 @@ public class BookingServiceImpl implements BookingService {
             SalonDTO salon,
             Set<ServiceOfferingDTO> services) throws Exception {
 
-        int totalDuration = services.stream()
-                .mapToInt(ServiceOfferingDTO::getDuration)
-                .sum();
+        int totalDuration = totalDuration(services);
 
         LocalDateTime start = req.getStartTime();
         LocalDateTime end = start.plusMinutes(totalDuration);
@@ -42,151 +81,545 @@ public class BookingServiceImpl implements BookingService {
         if (!isTimeSlotAvailable(salon, start, end))
             throw new Exception("Slot is not available");
 
-        BigDecimal totalPrice = services.stream()
-                .map(dto -> BigDecimal.valueOf(dto.getPrice()))
-                .reduce(BigDecimal.ZERO, BigDecimal::add)
-                .setScale(2);
+        Booking saved = bookingRepository.save(
+                newBooking(user, salon, start, end, serviceIds(services), totalPrice(services)));
+        afterCreate(saved);
+        return saved;
+    }
 
-        Set<Long> serviceIds = services.stream()
-                .map(ServiceOfferingDTO::getId)
-                .collect(Collectors.toSet());
+    @Override
+    public Booking createBookingWithDeferredPaymentLink(BookingRequest req,
+            UserDTO user,
+            SalonDTO salon,
+            Set<ServiceOfferingDTO> services,
+            PaymentMethod paymentMethod) throws Exception {
+
+        Booking saved = createBooking(req, user, salon, services);
+        saved.setPaymentMethod(paymentMethod);
+        saved.setPaymentLinkStatus(PaymentLinkStatus.REQUESTED);
+        bookingOutbox.paymentLinkRequested(saved, paymentMethod);
+        return saved;
+    }
+
+    /**
+     * Alta masiva: valida todas las ocurrencias contra el horario, entre sí y contra el índice
+     * antes de bloquear nada; después bloquea los días en orden ascendente (dos altas masivas
+     * del mismo salón no pueden cruzarse), verifica en la BD y guarda el grupo con saveAll.
+     * Todas llevan el mismo groupId, tomado de bookings_seq (no coincide con ningún id de reserva).
+     */
+    @Override
+    public List<Booking> createBookings(List<LocalDateTime> startTimes,
+            UserDTO user,
+            SalonDTO salon,
+            Set<ServiceOfferingDTO> services) throws Exception {
 
-        Booking booking = Booking.builder()
+        List<LocalDateTime> starts = startTimes.stream().distinct().sorted().toList();
+        if (starts.isEmpty())
+            throw new Exception("At least one start time is required");
+
+        int totalDuration = totalDuration(services);
+
+        List<Timer.Sample> samples = new ArrayList<>(starts.size());
+        LocalDateTime previousEnd = null;
+        for (LocalDateTime start : starts) {
+            LocalDateTime end = start.plusMinutes(totalDuration);
+            if (previousEnd != null && start.isBefore(previousEnd))
+                throw new Exception("Occurrences overlap each other at " + start);
+            Timer.Sample sample = metrics.startTimer();
+            checkAgainstIndex(salon, start, end, sample);
+            samples.add(sample);
+            previousEnd = end;
+        }
+
+        for (int i = 0; i < starts.size(); i++) {
+            LocalDateTime start = starts.get(i);
+            if (!claimSlot(salon.getId(), NO_BOOKING, start, start.plusMinutes(totalDuration))) {
+                metrics.recordSlotCheck(samples.get(i), "conflict_db");
+                throw new Exception("Slot not available at " + start + ". Conflicts with existing booking.");
+            }
+        }
+        samples.forEach(sample -> metrics.recordSlotCheck(sample, "available"));
+
+        Set<Long> serviceIds = serviceIds(services);
+        BigDecimal totalPrice = totalPrice(services);
+
+        // el groupId se reserva antes de persistir: todas las filas salen en el mismo lote de INSERT
+        Long groupId = bookingIdAllocator.next();
+        List<Booking> occurrences = new ArrayList<>(starts.size());
+        for (LocalDateTime start : starts) {
+            Booking booking = newBooking(user, salon, start, start.plusMinutes(totalDuration), serviceIds, totalPrice);
+            booking.setGroupId(groupId);
+            occurrences.add(booking);
+        }
+
+        List<Booking> group = bookingRepository.saveAll(occurrences);
+        group.forEach(this::afterCreate);
+        return group;
+    }
+
+    private Booking newBooking(UserDTO user, SalonDTO salon, LocalDateTime start, LocalDateTime end,
+            Set<Long> serviceIds, BigDecimal totalPrice) {
+        return Booking.builder()
                 .customerId(user.getId())
                 .salonId(salon.getId())
                 .startTime(start)
                 .endTime(end)
-                .serviceIds(serviceIds)
+                .serviceIds(new HashSet<>(serviceIds))
                 .totalPrice(totalPrice)
                 .status(BookingStatus.PENDING)
                 .build();
+    }
+
+    /** Mantiene índice de slots, reporte, rollups diarios y outbox en la misma transacción */
+    private void afterCreate(Booking saved) {
+        slotIndex.onBookingChanged(saved);
+        reportAggregator.onCreated(saved);
+        rollupService.onCreated(saved);
+        bookingOutbox.bookingCreated(saved);
+    }
 
-        return bookingRepository.save(booking);
+    private static int totalDuration(Set<ServiceOfferingDTO> services) {
+        return services.stream()
+                .mapToInt(ServiceOfferingDTO::getDuration)
+                .sum();
+    }
+
+    private static BigDecimal totalPrice(Set<ServiceOfferingDTO> services) {
+        return services.stream()
+                .map(dto -> BigDecimal.valueOf(dto.getPrice()))
+                .reduce(BigDecimal.ZERO, BigDecimal::add)
+                .setScale(2);
+    }
+
+    private static Set<Long> serviceIds(Set<ServiceOfferingDTO> services) {
+        return services.stream()
+                .map(ServiceOfferingDTO::getId)
+                .collect(Collectors.toSet());
     }
 
     /* ── disponibilidad ── */
     private boolean isTimeSlotAvailable(SalonDTO salon, LocalDateTime start, LocalDateTime end) throws Exception {
+        Timer.Sample sample = metrics.startTimer();
+        checkAgainstIndex(salon, start, end, sample);
+
+        // ✅ RESERVAR EL DÍA Y VOLVER A VERIFICAR EN LA BD (el índice puede no ver altas de otras instancias)
+        if (!claimSlot(salon.getId(), NO_BOOKING, start, end)) {
+            metrics.recordSlotCheck(sample, "conflict_db");
+            throw new Exception("Slot not available, choose different time. Conflicts with existing booking.");
+        }
 
-        System.out.println("🕐 VALIDANDO SLOT DE TIEMPO:");
-        System.out.println("   Salon: " + salon.getName());
-        System.out.println("   Slot solicitado: " + start + " - " + end);
-        System.out.println("   Horario salón: " + salon.getOpenTime() + " - " + salon.getCloseTime());
+        metrics.recordSlotCheck(sample, "available");
+        return true;
+    }
+
+    /** Horario del salón e índice en memoria; no toca la BD salvo para cargar el día */
+    private void checkAgainstIndex(SalonDTO salon, LocalDateTime start, LocalDateTime end,
+            Timer.Sample sample) throws Exception {
 
         // 🚀 ARREGLO: USAR atTime() EN LUGAR DE atDate()
         LocalDateTime salonOpen = start.toLocalDate().atTime(salon.getOpenTime());
         LocalDateTime salonClose = start.toLocalDate().atTime(salon.getCloseTime());
 
-        System.out.println("   Horario completo del día: " + salonOpen + " - " + salonClose);
-
         // ✅ VALIDAR QUE EL BOOKING ESTÉ DENTRO DEL HORARIO DEL SALÓN
         if (start.isBefore(salonOpen)) {
-            System.out.println("❌ Hora de inicio (" + start + ") es antes de apertura (" + salonOpen + ")");
+            metrics.recordSlotCheck(sample, "outside_hours");
             throw new Exception(
                     "Booking time must be within salon's open hours. Salon opens at " + salon.getOpenTime());
         }
 
         if (end.isAfter(salonClose)) {
-            System.out.println("❌ Hora de fin (" + end + ") es después de cierre (" + salonClose + ")");
+            metrics.recordSlotCheck(sample, "outside_hours");
             throw new Exception(
                     "Booking time must be within salon's open hours. Salon closes at " + salon.getCloseTime());
         }
 
-        System.out.println("✅ Horario válido - verificando disponibilidad...");
-
-        // ✅ VERIFICAR QUE NO HAYA OVERLAP CON OTROS BOOKINGS
-        List<Booking> existingBookings = getBookingsBySalon(salon.getId());
-        System.out.println("   Bookings existentes: " + existingBookings.size());
-
-        for (Booking existingBooking : existingBookings) {
-            boolean overlap = start.isBefore(existingBooking.getEndTime()) &&
-                    end.isAfter(existingBooking.getStartTime());
-
-            boolean exactMatch = start.isEqual(existingBooking.getStartTime()) ||
-                    end.isEqual(existingBooking.getEndTime());
-
-            if (overlap || exactMatch) {
-                System.out.println("❌ Conflicto con booking existente: " +
-                        existingBooking.getStartTime() + " - " + existingBooking.getEndTime());
-                throw new Exception("Slot not available, choose different time. Conflicts with existing booking.");
-            }
+        // ✅ VERIFICAR QUE NO HAYA OVERLAP CON OTROS BOOKINGS (índice por salón y día)
+        if (slotIndex.hasConflict(salon.getId(), start, end)) {
+            metrics.recordSlotCheck(sample, "conflict");
+            log.debug("Slot {} - {} en salón {} ocupado", start, end, salon.getId());
+            throw new Exception("Slot not available, choose different time. Conflicts with existing booking.");
         }
+    }
 
-        System.out.println("✅ Slot disponible!");
+    /**
+     * Toma el bloqueo de (salón, día) hasta el fin de la transacción y verifica en la BD
+     * que [start, end) sigue libre. Con el bloqueo tomado, ninguna otra alta del mismo
+     * día puede insertar entre esta verificación y el save.
+     */
+    private boolean claimSlot(Long salonId, long excludeId, LocalDateTime start, LocalDateTime end) {
+        LocalDate day = start.toLocalDate();
+        salonDayLocker.lock(salonId, day);
+        if (bookingRepository.existsConflicting(salonId, excludeId, day.atStartOfDay(), start, end)) {
+            // el índice local estaba desactualizado
+            slotIndex.invalidate(salonId, day);
+            return false;
+        }
         return true;
     }
 
     /* ───────────────────────────── READ ───────────────────────────── */
     @Override
+    @Transactional(readOnly = true)
     public List<Booking> getBookingsByCustomer(Long id) {
-        return bookingRepository.findByCustomerId(id);
+        return metrics.timeQuery("findByCustomerId", () -> bookingRepository.findByCustomerId(id));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Booking> getBookingsBySalon(Long id) {
-        return bookingRepository.findBySalonId(id);
+        return metrics.timeQuery("findBySalonId", () -> bookingRepository.findBySalonId(id));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Booking> getBookingsByCustomer(Long customerId, boolean includeArchive) {
+        List<Booking> bookings = getBookingsByCustomer(customerId);
+        if (!includeArchive)
+            return bookings;
+        List<Booking> all = new ArrayList<>(bookings);
+        metrics.timeQuery("findArchivedByCustomerId", () -> archivedRepository.findByCustomerId(customerId))
+                .forEach(archived -> all.add(archived.toBooking()));
+        return all;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Booking> getBookingsBySalon(Long salonId, boolean includeArchive) {
+        List<Booking> bookings = getBookingsBySalon(salonId);
+        if (!includeArchive)
+            return bookings;
+        List<Booking> all = new ArrayList<>(bookings);
+        metrics.timeQuery("findArchivedBySalonId", () -> archivedRepository.findBySalonId(salonId))
+                .forEach(archived -> all.add(archived.toBooking()));
+        return all;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<Booking> getBookingsByCustomer(Long customerId, BookingPageRequest page) {
+        int size = pageSize(page);
+        BookingCursor after = page.getAfter() != null ? page.getAfter() : BookingCursor.START;
+        List<Booking> rows = metrics.timeQuery("findCustomerPage", () -> bookingRepository.findCustomerPage(customerId,
+                pageStatuses(page), pageFrom(page), pageTo(page),
+                after.getStartTime(), after.getId(), Limit.of(size + 1)));
+        return toSlice(rows, size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<Booking> getBookingsBySalon(Long salonId, BookingPageRequest page) {
+        int size = pageSize(page);
+        BookingCursor after = page.getAfter() != null ? page.getAfter() : BookingCursor.START;
+        List<Booking> rows = metrics.timeQuery("findSalonPage", () -> bookingRepository.findSalonPage(salonId,
+                pageStatuses(page), pageFrom(page), pageTo(page),
+                after.getStartTime(), after.getId(), Limit.of(size + 1)));
+        return toSlice(rows, size);
+    }
+
+    /* se pide una fila de más para saber si hay página siguiente */
+    private Slice<Booking> toSlice(List<Booking> rows, int size) {
+        boolean hasNext = rows.size() > size;
+        List<Booking> content = hasNext ? rows.subList(0, size) : rows;
+        return new SliceImpl<>(content, PageRequest.ofSize(size), hasNext);
+    }
+
+    private int pageSize(BookingPageRequest page) {
+        return Math.max(1, Math.min(page.getSize(), BookingPageRequest.MAX_SIZE));
+    }
+
+    private Collection<BookingStatus> pageStatuses(BookingPageRequest page) {
+        return page.getStatus() != null ? List.of(page.getStatus()) : List.of(BookingStatus.values());
+    }
+
+    private LocalDateTime pageFrom(BookingPageRequest page) {
+        return page.getFrom() != null ? page.getFrom().atStartOfDay() : BookingCursor.START.getStartTime();
+    }
+
+    private LocalDateTime pageTo(BookingPageRequest page) {
+        return page.getTo() != null ? page.getTo().plusDays(1).atStartOfDay() : LocalDateTime.of(9999, 12, 31, 0, 0);
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public void streamBookingsBySalon(Long salonId, int batchSize, Consumer<List<Booking>> batchConsumer) {
+        streamBookingsBySalon(salonId, false, batchSize, batchConsumer);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamBookingsBySalon(Long salonId, boolean includeArchive, int batchSize,
+            Consumer<List<Booking>> batchConsumer) {
+        List<Booking> batch = new ArrayList<>(batchSize);
+        try (Stream<Booking> bookings = bookingRepository.streamBySalonId(salonId)) {
+            drain(bookings.iterator(), batch, batchSize, batchConsumer);
+        }
+        if (includeArchive) {
+            try (Stream<Booking> archived = archivedRepository.streamBySalonId(salonId).map(ArchivedBooking::toBooking)) {
+                drain(archived.iterator(), batch, batchSize, batchConsumer);
+            }
+        }
+        if (!batch.isEmpty()) {
+            flushBatch(batch, batchConsumer);
+        }
+    }
+
+    private void drain(Iterator<Booking> it, List<Booking> batch, int batchSize,
+            Consumer<List<Booking>> batchConsumer) {
+        while (it.hasNext()) {
+            batch.add(it.next());
+            if (batch.size() == batchSize) {
+                flushBatch(batch, batchConsumer);
+            }
+        }
+    }
+
+    private void flushBatch(List<Booking> batch, Consumer<List<Booking>> batchConsumer) {
+        batchConsumer.accept(List.copyOf(batch));
+        batch.clear();
+        // memoria acotada: las entidades del lote ya se serializaron
+        entityManager.clear();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Booking getBookingById(Long id) {
-        return bookingRepository.findById(id).orElse(null);
+        // después de booking.archive.horizon-days la reserva solo existe en archived_bookings
+        return bookingRepository.findById(id)
+                .or(() -> archivedRepository.findById(id).map(ArchivedBooking::toBooking))
+                .orElse(null);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Booking> getBookingsByDate(LocalDate date, Long salonId) {
-        List<Booking> all = getBookingsBySalon(salonId);
         if (date == null)
-            return all;
-        return all.stream()
-                .filter(b -> sameDay(b.getStartTime(), date) || sameDay(b.getEndTime(), date))
-                .collect(Collectors.toList());
+            return getBookingsBySalon(salonId);
+        // solo las filas que se solapan con [00:00, 24:00)
+        LocalDateTime from = date.atStartOfDay();
+        return metrics.timeQuery("findBySalonIdAndWindow",
+                () -> bookingRepository.findBySalonIdAndWindow(
+                        salonId, from.minus(MAX_BOOKING_SPAN), from, from.plusDays(1)));
     }
 
-    private boolean sameDay(LocalDateTime dt, LocalDate d) {
-        return dt.toLocalDate().isEqual(d);
+    @Override
+    @Transactional(readOnly = true)
+    public List<Booking> getBookingsByDate(LocalDate date, Long salonId, Collection<BookingStatus> statuses) {
+        if (statuses == null || statuses.isEmpty())
+            return getBookingsByDate(date, salonId);
+        if (date == null)
+            return getBookingsBySalon(salonId).stream()
+                    .filter(b -> statuses.contains(b.getStatus()))
+                    .collect(Collectors.toList());
+        LocalDateTime from = date.atStartOfDay();
+        return metrics.timeQuery("findBySalonIdAndWindowAndStatusIn",
+                () -> bookingRepository.findBySalonIdAndWindowAndStatusIn(
+                        salonId, from.minus(MAX_BOOKING_SPAN), from, from.plusDays(1), statuses));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookedSlotsDTO> getBookedSlots(LocalDate date, Long salonId, Collection<BookingStatus> statuses) {
+        LocalDateTime from = date.atStartOfDay();
+        return metrics.timeQuery("findSlotsBySalonIdAndWindow",
+                () -> bookingRepository.findSlotsBySalonIdAndWindow(
+                        salonId, from.minus(MAX_BOOKING_SPAN), from, from.plusDays(1), statuses));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<AvailableSlotsDTO> getAvailableSlots(SalonDTO salon, LocalDate from, LocalDate to,
+            int durationMinutes, int stepMinutes) {
+        Duration duration = Duration.ofMinutes(durationMinutes);
+        LocalDateTime now = LocalDateTime.now();
+        List<AvailableSlotsDTO> days = new ArrayList<>();
+
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            LocalDateTime open = day.atTime(salon.getOpenTime());
+            List<BookingSlotIndex.FreeWindow> windows = slotIndex.freeWindows(
+                    salon.getId(), day, salon.getOpenTime(), salon.getCloseTime());
+
+            List<BookedSlotsDTO> freeWindows = new ArrayList<>(windows.size());
+            List<LocalDateTime> startTimes = new ArrayList<>();
+            for (BookingSlotIndex.FreeWindow window : windows) {
+                freeWindows.add(new BookedSlotsDTO(window.start(), window.end()));
+
+                // primer inicio alineado a la grilla (apertura + k * step) dentro del hueco
+                long offset = Duration.between(open, window.start()).toMinutes();
+                long aligned = (offset + stepMinutes - 1) / stepMinutes * stepMinutes;
+                for (LocalDateTime start = open.plusMinutes(aligned);
+                        !start.plus(duration).isAfter(window.end());
+                        start = start.plusMinutes(stepMinutes)) {
+                    if (start.isAfter(now)) {
+                        startTimes.add(start);
+                    }
+                }
+            }
+            days.add(new AvailableSlotsDTO(day, freeWindows, startTimes));
+        }
+        return days;
     }
 
     /* ───────────────────────────── UPDATE ─────────────────────────── */
     @Override
     public Booking bookingSucess(PaymentOrder order) {
-        Booking b = getBookingById(order.getBookingId());
-        if (b != null) {
-            b.setStatus(BookingStatus.CONFIRMED);
-            return bookingRepository.save(b);
+        bookingSucess(List.of(order));
+        return getBookingById(order.getBookingId());
+    }
+
+    /**
+     * Pipeline idempotente: descarta pagos repetidos (LRU + processed_payment_events),
+     * bloquea las reservas que siguen PENDING y las pasa a CONFIRMED con un único
+     * UPDATE condicionado al estado, sin leer-modificar-escribir.
+     */
+    @Override
+    public int bookingSucess(List<PaymentOrder> orders) {
+        List<PaymentOrder> fresh = paymentDeduplicator.filterNew(orders);
+        if (fresh.isEmpty())
+            return 0;
+
+        Set<Long> ids = fresh.stream()
+                .map(PaymentOrder::getBookingId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        // un pago de un alta masiva trae bookingId = groupId (tomado de bookings_seq, no es el id
+        // de ninguna reserva): transition busca por id o por groupId y confirma todo el grupo
+        int confirmed = transition(new ArrayList<>(ids), BookingStatus.PENDING, BookingStatus.CONFIRMED);
+
+        paymentDeduplicator.markProcessed(fresh);
+        return confirmed;
+    }
+
+    @Override
+    public int expirePendingBookings(LocalDateTime createdBefore, int limit) {
+        List<Booking> candidates = bookingRepository.findByStatusCreatedBefore(
+                BookingStatus.PENDING, createdBefore, Limit.of(Math.min(limit, MAX_IN_LIST)));
+        if (candidates.isEmpty())
+            return 0;
+
+        // milisegundos: el valor se guarda exacto y sirve para reconocer las filas de este UPDATE
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        List<Long> ids = candidates.stream().map(Booking::getId).toList();
+        int updated = bookingRepository.compareAndSetStatusCreatedBefore(
+                ids, BookingStatus.PENDING, BookingStatus.CANCELLED, createdBefore, now);
+
+        List<Booking> expired = candidates;
+        if (updated < candidates.size()) {
+            // otra transacción confirmó o canceló alguna entre el SELECT y el UPDATE
+            Set<Long> applied = new HashSet<>(bookingRepository.findIdsByIdInAndStatusAndUpdatedAt(
+                    ids, BookingStatus.CANCELLED, now));
+            expired = candidates.stream().filter(b -> applied.contains(b.getId())).toList();
+        }
+
+        // las entidades quedaron desacopladas por el UPDATE masivo: solo se usan como datos
+        for (Booking b : expired) {
+            b.setStatus(BookingStatus.CANCELLED);
+            b.setUpdatedAt(now);
+        }
+        onStatusChanged(expired, BookingStatus.PENDING);
+        return expired.size();
+    }
+
+    /**
+     * Bloquea las reservas (y sus grupos) que siguen en expected y las pasa a status con un
+     * UPDATE condicionado al estado por cada MAX_IN_LIST ids, sin leer-modificar-escribir.
+     * Devuelve cuántas cambiaron.
+     */
+    private int transition(List<Long> ids, BookingStatus expected, BookingStatus status) {
+        List<Booking> changed = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (int from = 0; from < ids.size(); from += MAX_IN_LIST) {
+            List<Long> chunk = ids.subList(from, Math.min(from + MAX_IN_LIST, ids.size()));
+            List<Booking> locked = bookingRepository.lockByIdOrGroupIdInAndStatus(chunk, expected);
+            List<Long> lockedIds = locked.stream().map(Booking::getId).toList();
+            for (int at = 0; at < lockedIds.size(); at += MAX_IN_LIST) {
+                bookingRepository.compareAndSetStatus(
+                        lockedIds.subList(at, Math.min(at + MAX_IN_LIST, lockedIds.size())),
+                        expected, status, now);
+            }
+            changed.addAll(locked);
+        }
+
+        // las entidades quedaron desacopladas por el UPDATE masivo: solo se usan como datos
+        for (Booking b : changed) {
+            b.setStatus(status);
+            b.setUpdatedAt(now);
         }
-        return null;
+        onStatusChanged(changed, expected);
+        return changed.size();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Booking getBookingAwaitingPaymentLink(Long bookingId) {
+        Booking booking = bookingRepository.findById(bookingId).orElse(null);
+        if (booking == null
+                || booking.getStatus() != BookingStatus.PENDING
+                || booking.getPaymentLinkStatus() != PaymentLinkStatus.REQUESTED) {
+            return null;
+        }
+        // se serializa hacia el servicio de pagos fuera de la transacción
+        Hibernate.initialize(booking.getServiceIds());
+        return booking;
+    }
+
+    @Override
+    public boolean attachPaymentLink(Long bookingId, String paymentLinkUrl, String paymentLinkId) {
+        return bookingRepository.compareAndSetPaymentLink(bookingId, PaymentLinkStatus.REQUESTED,
+                PaymentLinkStatus.CREATED, paymentLinkUrl, paymentLinkId, LocalDateTime.now()) == 1;
+    }
+
+    @Override
+    public boolean markPaymentLinkFailed(Long bookingId) {
+        return bookingRepository.compareAndSetPaymentLink(bookingId, PaymentLinkStatus.REQUESTED,
+                PaymentLinkStatus.FAILED, null, null, LocalDateTime.now()) == 1;
     }
 
     @Override
     public Booking updateBookingStatus(Long id, BookingStatus status) throws Exception {
-        Booking b = getBookingById(id);
+        // las archivadas son de solo lectura: no se reactivan ni cancelan
+        Booking b = bookingRepository.findById(id).orElse(null);
         if (b == null)
             throw new Exception("Booking not found");
+        BookingStatus previous = b.getStatus();
+        // reactivar una cancelada vuelve a ocupar el slot: misma verificación que un alta
+        if (previous == BookingStatus.CANCELLED && status != BookingStatus.CANCELLED
+                && !claimSlot(b.getSalonId(), b.getId(), b.getStartTime(), b.getEndTime())) {
+            throw new Exception("Slot not available, choose different time. Conflicts with existing booking.");
+        }
         b.setStatus(status);
-        return bookingRepository.save(b);
+        Booking saved = bookingRepository.save(b);
+        onStatusChanged(saved, previous);
+        return saved;
+    }
+
+    /**
+     * Igual para un lote que venía del mismo estado: los deltas del reporte y de los rollups
+     * se suman por salón / (salón, día) y los eventos del outbox se guardan con un saveAll.
+     */
+    private void onStatusChanged(List<Booking> changed, BookingStatus previous) {
+        if (changed.isEmpty())
+            return;
+        slotIndex.onBookingsChanged(changed);
+        reportAggregator.onStatusChanged(changed, previous);
+        rollupService.onStatusChanged(changed, previous);
+        bookingOutbox.statusChanged(changed, previous);
+    }
+
+    /** Mantiene índice de slots, reporte, rollups diarios y outbox en la misma transacción */
+    private void onStatusChanged(Booking saved, BookingStatus previous) {
+        slotIndex.onBookingChanged(saved);
+        reportAggregator.onStatusChanged(saved, previous);
+        rollupService.onStatusChanged(saved, previous);
+        if (saved.getStatus() != previous) {
+            bookingOutbox.statusChanged(saved, previous);
+        }
     }
 
     /* ───────────────────────────── REPORT ─────────────────────────── */
     @Override
     public SalonReport getSalonReport(Long salonId) {
-        List<Booking> list = getBookingsBySalon(salonId);
-
-        BigDecimal earnings = list.stream()
-                .map(Booking::getTotalPrice)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        List<Booking> cancelled = list.stream()
-                .filter(b -> b.getStatus() == BookingStatus.CANCELLED)
-                .collect(Collectors.toList());
-
-        BigDecimal refunds = cancelled.stream()
-                .map(Booking::getTotalPrice)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        SalonReport r = new SalonReport();
-        r.setTotalEarnings(earnings);
-        r.setTotalBookings(list.size());
-        r.setCancelledBookings(cancelled.size());
-        r.setTotalRefund(refunds);
-        return r;
+        // Lectura de la fila agregada (se mantiene en create / update / bookingSucess)
+        return reportAggregator.getReport(salonId);
     }
 }
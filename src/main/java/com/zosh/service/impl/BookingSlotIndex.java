@@ -0,0 +1,271 @@
+package com.zosh.service.impl;
+
+import com.zosh.domain.BookingStatus;
+import com.zosh.modal.Booking;
+import com.zosh.repository.BookingRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Índice en memoria de los intervalos ocupados por salón y por día.
+ *
+ * Cada (salón, día) se carga una sola vez desde la BD (solo las reservas de ese día)
+ * y después se mantiene con las altas, confirmaciones y cancelaciones, así la
+ * verificación de solapamiento es O(log n) sin recorrer todo el historial del salón.
+ * Las reservas CANCELLED no ocupan el slot.
+ *
+ * Cada día guarda además sus intervalos ocupados ya fusionados; se recalculan solo
+ * cuando una alta o cambio de estado toca ese día.
+ */
+@Component
+@RequiredArgsConstructor
+public class BookingSlotIndex {
+
+    private final BookingRepository bookingRepository;
+
+    /** Tiempo máximo que un día cargado se usa sin releerlo (cambios hechos por otras instancias) */
+    @Value("${booking.slot-index.ttl-minutes:10}")
+    private long ttlMinutes;
+
+    private final Map<SalonDay, DaySchedule> days = new ConcurrentHashMap<>();
+
+    /* ───────────────────────────── CONSULTA ───────────────────────────── */
+
+    /**
+     * true si [start, end) se solapa con una reserva activa del salón,
+     * o comparte hora de inicio / fin con ella (mismo criterio que la validación original).
+     */
+    public boolean hasConflict(Long salonId, LocalDateTime start, LocalDateTime end) {
+        return schedule(salonId, start.toLocalDate()).conflicts(start, end);
+    }
+
+    /**
+     * Huecos libres del día dentro de [open, close], en orden. Una reserva puede
+     * empezar justo cuando termina otra.
+     */
+    public List<FreeWindow> freeWindows(Long salonId, LocalDate day, LocalTime open, LocalTime close) {
+        return schedule(salonId, day).freeWindows(day.atTime(open), day.atTime(close));
+    }
+
+    public record FreeWindow(LocalDateTime start, LocalDateTime end) {
+    }
+
+    /* ─────────────────────────── MANTENIMIENTO ─────────────────────────── */
+
+    /** Registra el estado actual de la reserva al confirmar la transacción en curso */
+    public void onBookingChanged(Booking booking) {
+        onBookingsChanged(List.of(booking));
+    }
+
+    /** Igual para varias reservas, con una sola sincronización de transacción */
+    public void onBookingsChanged(Collection<Booking> bookings) {
+        List<Change> changes = bookings.stream()
+                .map(b -> new Change(new SalonDay(b.getSalonId(), b.getStartTime().toLocalDate()),
+                        Slot.of(b), b.getStatus() != BookingStatus.CANCELLED))
+                .toList();
+
+        afterCommit(() -> {
+            for (Change change : changes) {
+                // si el día aún no está cargado no hay nada que hacer: se leerá de la BD
+                DaySchedule schedule = days.get(change.key());
+                if (schedule != null) {
+                    schedule.apply(change.slot(), change.active());
+                }
+            }
+        });
+    }
+
+    /** Descarta un día para que la próxima consulta lo relea desde la BD */
+    public void invalidate(Long salonId, LocalDate day) {
+        days.remove(new SalonDay(salonId, day));
+    }
+
+    private DaySchedule schedule(Long salonId, LocalDate day) {
+        SalonDay key = new SalonDay(salonId, day);
+        DaySchedule schedule = days.get(key);
+        if (schedule == null || schedule.isExpired(ttlMinutes)) {
+            evictPastDays();
+            // compute solo instala el día vacío; la lectura de la BD no se hace con el bin del mapa bloqueado
+            schedule = days.compute(key, (k, current) ->
+                    current != null && !current.isExpired(ttlMinutes) ? current : new DaySchedule());
+        }
+        // la primera consulta carga el día; las demás de este (salón, día) esperan solo esa carga
+        schedule.loadIfNeeded(() -> load(key));
+        return schedule;
+    }
+
+    private List<Slot> load(SalonDay key) {
+        LocalDateTime from = key.day().atStartOfDay();
+        return bookingRepository.findActiveBySalonIdAndStartTimeRange(key.salonId(), from, from.plusDays(1))
+                .stream()
+                .map(r -> new Slot(r.getId(), r.getStartTime(), r.getEndTime()))
+                .toList();
+    }
+
+    private void evictPastDays() {
+        LocalDate today = LocalDate.now();
+        days.keySet().removeIf(k -> k.day().isBefore(today));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /* ───────────────────────────── ESTRUCTURAS ───────────────────────────── */
+
+    record SalonDay(Long salonId, LocalDate day) {
+    }
+
+    private record Change(SalonDay key, Slot slot, boolean active) {
+    }
+
+    record Slot(Long bookingId, LocalDateTime start, LocalDateTime end) {
+
+        static final Comparator<Slot> ORDER = Comparator
+                .comparing(Slot::start)
+                .thenComparing(Slot::bookingId);
+
+        static Slot of(Booking b) {
+            return new Slot(b.getId(), b.getStartTime(), b.getEndTime());
+        }
+
+        static Slot probe(LocalDateTime start, long bookingId) {
+            return new Slot(bookingId, start, start);
+        }
+    }
+
+    /** Intervalos de un día ordenados por inicio; se sincroniza por instancia */
+    static final class DaySchedule {
+
+        private final NavigableSet<Slot> slots = new TreeSet<>(Slot.ORDER);
+        private final Map<Long, Slot> byId = new HashMap<>();
+        private final long loadedAt = System.nanoTime();
+        private boolean loaded;
+        private Duration longest = Duration.ZERO;
+        /** Intervalos ocupados fusionados (inicio, fin); null = recalcular */
+        private List<LocalDateTime[]> busy;
+
+        synchronized void loadIfNeeded(Supplier<List<Slot>> loader) {
+            if (!loaded) {
+                // si la carga falla el día queda sin cargar y la próxima consulta reintenta
+                loader.get().forEach(this::add);
+                loaded = true;
+            }
+        }
+
+        /**
+         * Cambio confirmado de una reserva. Antes de la carga se ignora: la carga empieza
+         * después del commit y ya lo ve.
+         */
+        synchronized void apply(Slot slot, boolean active) {
+            if (!loaded) {
+                return;
+            }
+            remove(slot.bookingId());
+            if (active) {
+                add(slot);
+            }
+        }
+
+        synchronized void add(Slot slot) {
+            busy = null;
+            slots.add(slot);
+            byId.put(slot.bookingId(), slot);
+            Duration length = Duration.between(slot.start(), slot.end());
+            if (length.compareTo(longest) > 0) {
+                longest = length;
+            }
+        }
+
+        synchronized void remove(Long bookingId) {
+            Slot slot = byId.remove(bookingId);
+            if (slot != null) {
+                slots.remove(slot);
+                busy = null;
+            }
+        }
+
+        /**
+         * Solo pueden solaparse los intervalos que empiezan en
+         * [start - duraciónMáxima, end], así que basta con recorrer ese subconjunto.
+         */
+        synchronized boolean conflicts(LocalDateTime start, LocalDateTime end) {
+            SortedSet<Slot> candidates = slots.subSet(
+                    Slot.probe(start.minus(longest), Long.MIN_VALUE), true,
+                    Slot.probe(end, Long.MAX_VALUE), true);
+
+            for (Slot s : candidates) {
+                boolean overlap = start.isBefore(s.end()) && end.isAfter(s.start());
+                boolean exactMatch = start.isEqual(s.start()) || end.isEqual(s.end());
+                if (overlap || exactMatch) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        synchronized List<FreeWindow> freeWindows(LocalDateTime open, LocalDateTime close) {
+            List<FreeWindow> free = new ArrayList<>();
+            LocalDateTime cursor = open;
+            for (LocalDateTime[] interval : busy()) {
+                if (!interval[1].isAfter(cursor)) {
+                    continue;
+                }
+                if (!interval[0].isBefore(close)) {
+                    break;
+                }
+                if (interval[0].isAfter(cursor)) {
+                    free.add(new FreeWindow(cursor, interval[0]));
+                }
+                cursor = interval[1];
+            }
+            if (cursor.isBefore(close)) {
+                free.add(new FreeWindow(cursor, close));
+            }
+            return free;
+        }
+
+        /** Un solo recorrido por inicio: cada intervalo se une al anterior si lo solapa o lo toca */
+        private List<LocalDateTime[]> busy() {
+            if (busy == null) {
+                List<LocalDateTime[]> merged = new ArrayList<>();
+                for (Slot s : slots) {
+                    LocalDateTime[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+                    if (last != null && !s.start().isAfter(last[1])) {
+                        if (s.end().isAfter(last[1])) {
+                            last[1] = s.end();
+                        }
+                    } else {
+                        merged.add(new LocalDateTime[] { s.start(), s.end() });
+                    }
+                }
+                busy = merged;
+            }
+            return busy;
+        }
+
+        boolean isExpired(long ttlMinutes) {
+            return System.nanoTime() - loadedAt > Duration.ofMinutes(ttlMinutes).toNanos();
+        }
+    }
+}
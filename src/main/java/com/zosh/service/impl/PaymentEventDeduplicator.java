@@ -0,0 +1,124 @@
+package com.zosh.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zosh.modal.PaymentOrder;
+import com.zosh.modal.ProcessedPaymentEvent;
+import com.zosh.repository.ProcessedPaymentEventRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Descarta pagos ya procesados antes de tocar las reservas.
+ *
+ * Primero se mira una LRU en memoria (acotada) y, para lo que no está ahí,
+ * la tabla processed_payment_events. Los pagos nuevos se registran en la misma
+ * transacción que la confirmación; si dos consumidores procesan el mismo pago a la vez,
+ * la clave primaria hace fallar a uno de ellos y su reintento lo descarta.
+ *
+ * Las filas se borran pasadas retention-days: una reentrega más vieja que eso ya no se
+ * reconoce acá, pero el UPDATE condicionado a PENDING tampoco la vuelve a aplicar.
+ */
+@Slf4j
+@Component
+public class PaymentEventDeduplicator {
+
+    /** Oracle admite hasta 1000 elementos en un IN (...) */
+    private static final int MAX_IN_LIST = 500;
+
+    private final ProcessedPaymentEventRepository processedRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache<String, Boolean> recentKeys;
+
+    @Value("${booking.idempotency.retention-days:30}")
+    private long retentionDays;
+
+    public PaymentEventDeduplicator(ProcessedPaymentEventRepository processedRepository,
+            EntityManager entityManager,
+            PlatformTransactionManager transactionManager,
+            @Value("${booking.idempotency.cache-size:100000}") long cacheSize) {
+        this.processedRepository = processedRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.recentKeys = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .build();
+    }
+
+    public static String keyOf(PaymentOrder order) {
+        if (order.getId() != null) {
+            return "order:" + order.getId();
+        }
+        if (order.getPaymentLinkId() != null) {
+            return "link:" + order.getPaymentLinkId();
+        }
+        return "booking:" + order.getBookingId();
+    }
+
+    /** Pagos del lote que todavía no se procesaron (también sin repetidos dentro del lote) */
+    public List<PaymentOrder> filterNew(List<PaymentOrder> orders) {
+        Map<String, PaymentOrder> byKey = new LinkedHashMap<>();
+        for (PaymentOrder order : orders) {
+            String key = keyOf(order);
+            if (recentKeys.getIfPresent(key) == null) {
+                byKey.putIfAbsent(key, order);
+            }
+        }
+        if (byKey.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<String> keys = new ArrayList<>(byKey.keySet());
+        for (int from = 0; from < keys.size(); from += MAX_IN_LIST) {
+            List<String> chunk = keys.subList(from, Math.min(from + MAX_IN_LIST, keys.size()));
+            for (String existing : processedRepository.findExistingKeys(chunk)) {
+                byKey.remove(existing);
+                recentKeys.put(existing, Boolean.TRUE);
+            }
+        }
+        return new ArrayList<>(byKey.values());
+    }
+
+    /** Registra los pagos como procesados dentro de la transacción actual */
+    public void markProcessed(List<PaymentOrder> orders) {
+        List<String> keys = new ArrayList<>(orders.size());
+        for (PaymentOrder order : orders) {
+            String key = keyOf(order);
+            keys.add(key);
+            entityManager.persist(ProcessedPaymentEvent.builder()
+                    .eventKey(key)
+                    .bookingId(order.getBookingId())
+                    .build());
+        }
+
+        Runnable remember = () -> keys.forEach(k -> recentKeys.put(k, Boolean.TRUE));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remember.run();
+                }
+            });
+        } else {
+            remember.run();
+        }
+    }
+
+    @Scheduled(cron = "${booking.idempotency.cleanup-cron:0 20 4 * * *}")
+    public void purgeProcessed() {
+        LocalDateTime before = LocalDateTime.now().minusDays(retentionDays);
+        Integer deleted = transactionTemplate.execute(tx -> processedRepository.deleteProcessedBefore(before));
+        log.info("Pagos procesados anteriores a {} borrados: {}", before, deleted);
+    }
+}
@@ -0,0 +1,47 @@
+package com.zosh.service.impl;
+
+import com.zosh.metrics.BookingMetrics;
+import com.zosh.service.BookingService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cancela las reservas PENDING cuyo pago no llegó dentro de pending-ttl-minutes, para que
+ * dejen de ocupar su slot. Cada lote de batch-size es una transacción propia
+ * (BookingService.expirePendingBookings); se repite hasta que no quedan vencidas.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PendingBookingExpiry {
+
+    private final BookingService bookingService;
+    private final BookingMetrics metrics;
+
+    @Value("${booking.expiry.pending-ttl-minutes:30}")
+    private long pendingTtlMinutes;
+
+    @Value("${booking.expiry.batch-size:200}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${booking.expiry.poll-interval-ms:60000}")
+    public void expireStalePending() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(pendingTtlMinutes);
+        int total = 0;
+        int released;
+        do {
+            released = bookingService.expirePendingBookings(cutoff, batchSize);
+            metrics.countExpired(released);
+            total += released;
+        } while (released > 0);
+
+        if (total > 0) {
+            log.info("Reservas PENDING vencidas (creadas antes de {}): {} canceladas", cutoff, total);
+        }
+    }
+}
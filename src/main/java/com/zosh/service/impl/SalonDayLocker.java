@@ -0,0 +1,47 @@
+package com.zosh.service.impl;
+
+import com.zosh.modal.SalonDayLock;
+import com.zosh.repository.SalonDayLockRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+
+/**
+ * Serializa las altas de un mismo salón y día con un bloqueo de fila en salon_day_locks.
+ * El bloqueo se libera al terminar la transacción que lo tomó.
+ */
+@Component
+public class SalonDayLocker {
+
+    private final SalonDayLockRepository lockRepository;
+    private final TransactionTemplate newTransaction;
+
+    public SalonDayLocker(SalonDayLockRepository lockRepository,
+            PlatformTransactionManager transactionManager) {
+        this.lockRepository = lockRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /** Bloquea (salón, día) dentro de la transacción actual; crea la fila la primera vez */
+    public void lock(Long salonId, LocalDate day) {
+        if (lockRepository.lock(salonId, day).isPresent()) {
+            return;
+        }
+        try {
+            newTransaction.executeWithoutResult(tx -> {
+                if (!lockRepository.existsById(new SalonDayLock.Key(salonId, day))) {
+                    lockRepository.save(new SalonDayLock(salonId, day));
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            // otra transacción la insertó a la vez
+        }
+        lockRepository.lock(salonId, day)
+                .orElseThrow(() -> new IllegalStateException("No se pudo bloquear " + salonId + "/" + day));
+    }
+}
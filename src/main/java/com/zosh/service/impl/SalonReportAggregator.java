@@ -0,0 +1,202 @@
+package com.zosh.service.impl;
+
+import com.zosh.domain.BookingStatus;
+import com.zosh.modal.Booking;
+import com.zosh.modal.SalonReport;
+import com.zosh.modal.SalonReportAggregate;
+import com.zosh.repository.ArchivedBookingRepository;
+import com.zosh.repository.BookingRepository;
+import com.zosh.repository.SalonReportAggregateRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Mantiene {@link SalonReportAggregate}: una fila por salón con los totales del reporte.
+ *
+ * Las altas y cambios de estado aplican deltas con un UPDATE atómico dentro de la misma
+ * transacción que la reserva. La primera vez que un salón no tiene fila se reconstruye
+ * desde la BD en una transacción aparte, y un job periódico corrige cualquier desvío.
+ */
+@Slf4j
+@Service
+public class SalonReportAggregator {
+
+    private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archivedRepository;
+    private final SalonReportAggregateRepository aggregateRepository;
+    private final TransactionTemplate newTransaction;
+
+    public SalonReportAggregator(BookingRepository bookingRepository,
+            ArchivedBookingRepository archivedRepository,
+            SalonReportAggregateRepository aggregateRepository,
+            PlatformTransactionManager transactionManager) {
+        this.bookingRepository = bookingRepository;
+        this.archivedRepository = archivedRepository;
+        this.aggregateRepository = aggregateRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /* ───────────────────────────── ESCRITURA ───────────────────────────── */
+
+    public void onCreated(Booking booking) {
+        boolean cancelled = booking.getStatus() == BookingStatus.CANCELLED;
+        BigDecimal price = price(booking);
+        apply(booking.getSalonId(), price, 1, cancelled ? 1 : 0, cancelled ? price : BigDecimal.ZERO);
+    }
+
+    public void onStatusChanged(Booking booking, BookingStatus previous) {
+        boolean wasCancelled = previous == BookingStatus.CANCELLED;
+        boolean isCancelled = booking.getStatus() == BookingStatus.CANCELLED;
+        if (wasCancelled == isCancelled) {
+            return;
+        }
+        int sign = isCancelled ? 1 : -1;
+        BigDecimal refund = price(booking).multiply(BigDecimal.valueOf(sign));
+        apply(booking.getSalonId(), BigDecimal.ZERO, 0, sign, refund);
+    }
+
+    /** Igual para un lote que venía de previous: un UPDATE por salón con la suma de los deltas */
+    public void onStatusChanged(Collection<Booking> bookings, BookingStatus previous) {
+        Map<Long, Long> cancelled = new LinkedHashMap<>();
+        Map<Long, BigDecimal> refund = new HashMap<>();
+        boolean wasCancelled = previous == BookingStatus.CANCELLED;
+        for (Booking booking : bookings) {
+            boolean isCancelled = booking.getStatus() == BookingStatus.CANCELLED;
+            if (wasCancelled == isCancelled) {
+                continue;
+            }
+            int sign = isCancelled ? 1 : -1;
+            cancelled.merge(booking.getSalonId(), (long) sign, Long::sum);
+            refund.merge(booking.getSalonId(), price(booking).multiply(BigDecimal.valueOf(sign)), BigDecimal::add);
+        }
+        cancelled.forEach((salonId, count) ->
+                apply(salonId, BigDecimal.ZERO, 0, count, refund.get(salonId)));
+    }
+
+    private void apply(Long salonId, BigDecimal earnings, long bookings, long cancelled, BigDecimal refund) {
+        if (aggregateRepository.applyDelta(salonId, earnings, bookings, cancelled, refund) > 0) {
+            return;
+        }
+        // Sin fila: se crea con lo ya confirmado en la BD y se vuelve a aplicar el delta
+        ensureExists(salonId);
+        aggregateRepository.applyDelta(salonId, earnings, bookings, cancelled, refund);
+    }
+
+    private void ensureExists(Long salonId) {
+        try {
+            newTransaction.executeWithoutResult(status -> {
+                if (!aggregateRepository.existsById(salonId)) {
+                    aggregateRepository.save(computeFromBookings(salonId));
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            // otra transacción la insertó a la vez
+        }
+    }
+
+    /* ───────────────────────────── LECTURA ───────────────────────────── */
+
+    public SalonReport getReport(Long salonId) {
+        SalonReportAggregate aggregate = aggregateRepository.findById(salonId).orElse(null);
+        if (aggregate == null) {
+            ensureExists(salonId);
+            aggregate = aggregateRepository.findById(salonId)
+                    .orElseGet(() -> computeFromBookings(salonId));
+        }
+
+        SalonReport report = new SalonReport();
+        report.setSalonId(salonId);
+        report.setTotalEarnings(aggregate.getTotalEarnings());
+        report.setTotalBookings(aggregate.getTotalBookings().intValue());
+        report.setCancelledBookings(aggregate.getCancelledBookings().intValue());
+        report.setTotalRefund(aggregate.getTotalRefund());
+        return report;
+    }
+
+    /* ───────────────────────────── RECONCILIACIÓN ───────────────────────────── */
+
+    /** Recalcula cada salón desde las reservas y corrige los totales que se hayan desviado */
+    @Scheduled(cron = "${booking.report.reconcile-cron:0 30 3 * * *}")
+    public void reconcileAll() {
+        List<Long> salonIds = aggregateRepository.findAll().stream()
+                .map(SalonReportAggregate::getSalonId)
+                .toList();
+
+        int repaired = 0;
+        for (Long salonId : salonIds) {
+            Boolean changed = newTransaction.execute(status -> reconcile(salonId));
+            if (Boolean.TRUE.equals(changed)) {
+                repaired++;
+            }
+        }
+        log.info("Reportes reconciliados: {} salones, {} corregidos", salonIds.size(), repaired);
+    }
+
+    /**
+     * true si la fila del salón tenía desvío y se corrigió. La fila se bloquea antes de
+     * sumar las reservas: el recálculo empieza cuando los deltas en curso ya se confirmaron,
+     * y los posteriores esperan y se suman sobre los totales corregidos.
+     */
+    public boolean reconcile(Long salonId) {
+        SalonReportAggregate current = aggregateRepository.lock(salonId).orElse(null);
+        SalonReportAggregate expected = computeFromBookings(salonId);
+        if (current == null) {
+            aggregateRepository.save(expected);
+            return true;
+        }
+        if (sameTotals(current, expected)) {
+            return false;
+        }
+        current.setTotalBookings(expected.getTotalBookings());
+        current.setTotalEarnings(expected.getTotalEarnings());
+        current.setCancelledBookings(expected.getCancelledBookings());
+        current.setTotalRefund(expected.getTotalRefund());
+        return true;
+    }
+
+    /** Reservas vivas más las archivadas: el agregado cuenta todo el historial del salón */
+    private SalonReportAggregate computeFromBookings(Long salonId) {
+        BookingRepository.SalonTotals live = bookingRepository.sumTotalsBySalonId(salonId);
+        BookingRepository.SalonTotals archived = archivedRepository.sumTotalsBySalonId(salonId);
+        return SalonReportAggregate.builder()
+                .salonId(salonId)
+                .totalBookings(orZero(live.getTotalBookings()) + orZero(archived.getTotalBookings()))
+                .totalEarnings(orZero(live.getTotalEarnings()).add(orZero(archived.getTotalEarnings())))
+                .cancelledBookings(orZero(live.getCancelledBookings()) + orZero(archived.getCancelledBookings()))
+                .totalRefund(orZero(live.getTotalRefund()).add(orZero(archived.getTotalRefund())))
+                .build();
+    }
+
+    private static boolean sameTotals(SalonReportAggregate a, SalonReportAggregate b) {
+        return Objects.equals(a.getTotalBookings(), b.getTotalBookings())
+                && Objects.equals(a.getCancelledBookings(), b.getCancelledBookings())
+                && a.getTotalEarnings().compareTo(b.getTotalEarnings()) == 0
+                && a.getTotalRefund().compareTo(b.getTotalRefund()) == 0;
+    }
+
+    private static BigDecimal price(Booking booking) {
+        return booking.getTotalPrice() != null ? booking.getTotalPrice() : BigDecimal.ZERO;
+    }
+
+    private static long orZero(Long value) {
+        return value != null ? value : 0L;
+    }
+
+    private static BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+}
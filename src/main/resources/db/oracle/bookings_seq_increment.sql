@@ -0,0 +1,5 @@
+-- Booking.id usa allocationSize = 50 (optimizador pooled de Hibernate): cada nextval
+-- reserva un bloque de 50 IDs. Ejecutar una vez en las bases existentes, creadas con
+-- INCREMENT BY 1. Hasta entonces la aplicación arranca igual y sigue pidiendo de a 1
+-- (spring.jpa.properties.hibernate.id.sequence.increment_size_mismatch_strategy=fix).
+ALTER SEQUENCE bookings_seq INCREMENT BY 50;
@@ -0,0 +1,27 @@
+package com.zosh.configrations;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WebContentConfigTest {
+
+    @Test
+    void normalizedOnlyWhenAskedForExplicitly() {
+        assertThat(WebContentConfig.acceptsNormalized(WebContentConfig.NORMALIZED_JSON_VALUE)).isTrue();
+        assertThat(WebContentConfig.acceptsNormalized(
+                "application/json;q=0.9, application/vnd.booking.normalized+json")).isTrue();
+
+        assertThat(WebContentConfig.acceptsNormalized(null)).isFalse();
+        assertThat(WebContentConfig.acceptsNormalized("")).isFalse();
+        assertThat(WebContentConfig.acceptsNormalized("application/json")).isFalse();
+        assertThat(WebContentConfig.acceptsNormalized("*/*")).isFalse();
+        assertThat(WebContentConfig.acceptsNormalized("application/*")).isFalse();
+    }
+
+    @Test
+    void refusedOrMalformedAcceptIsNotNormalized() {
+        assertThat(WebContentConfig.acceptsNormalized("application/vnd.booking.normalized+json;q=0")).isFalse();
+        assertThat(WebContentConfig.acceptsNormalized("not a media type")).isFalse();
+    }
+}
@@ -0,0 +1,71 @@
+package com.zosh.messaging;
+
+import com.rabbitmq.client.Channel;
+import com.zosh.modal.PaymentOrder;
+import com.zosh.service.BookingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class BookingEventConsumerTest {
+
+    private BookingService bookingService;
+    private Channel channel;
+    private BookingEventConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        bookingService = mock(BookingService.class);
+        channel = mock(Channel.class);
+        consumer = new BookingEventConsumer(bookingService);
+    }
+
+    @Test
+    void acksWholeBatchOnceWhenItSucceeds() throws Exception {
+        List<Message<PaymentOrder>> batch = List.of(message(1L, 11), message(2L, 12), message(3L, 13));
+        when(bookingService.bookingSucess(anyList())).thenReturn(3);
+
+        consumer.bookingUpdateListener(batch, channel);
+
+        verify(channel).basicAck(13, true);
+        verify(channel, never()).basicNack(anyLong(), anyBoolean(), anyBoolean());
+        verify(bookingService, never()).bookingSucess(any(PaymentOrder.class));
+    }
+
+    @Test
+    void afterBatchFailureAcksSuccessesAndDeadLettersOnlyFailures() throws Exception {
+        Message<PaymentOrder> ok1 = message(1L, 11);
+        Message<PaymentOrder> bad = message(2L, 12);
+        Message<PaymentOrder> ok2 = message(3L, 13);
+        when(bookingService.bookingSucess(anyList())).thenThrow(new IllegalStateException("batch failed"));
+        when(bookingService.bookingSucess(bad.getPayload())).thenThrow(new IllegalStateException("bad order"));
+
+        consumer.bookingUpdateListener(List.of(ok1, bad, ok2), channel);
+
+        verify(bookingService).bookingSucess(ok1.getPayload());
+        verify(bookingService).bookingSucess(ok2.getPayload());
+        verify(channel).basicAck(11, false);
+        verify(channel).basicAck(13, false);
+        verify(channel).basicNack(12, false, false);
+        verify(channel, never()).basicAck(anyLong(), eq(true));
+    }
+
+    private static Message<PaymentOrder> message(Long bookingId, long deliveryTag) {
+        PaymentOrder order = new PaymentOrder();
+        order.setBookingId(bookingId);
+        return MessageBuilder.withPayload(order)
+                .setHeader(AmqpHeaders.DELIVERY_TAG, deliveryTag)
+                .build();
+    }
+}
@@ -0,0 +1,131 @@
+package com.zosh.messaging;
+
+import com.zosh.modal.OutboxEvent;
+import com.zosh.repository.OutboxEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class OutboxRelayTest {
+
+    private OutboxEventRepository repository;
+    private RabbitTemplate rabbitTemplate;
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(OutboxEventRepository.class);
+        rabbitTemplate = mock(RabbitTemplate.class);
+        relay = new OutboxRelay(repository, rabbitTemplate, mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(relay, "batchSize", 2);
+        ReflectionTestUtils.setField(relay, "confirmTimeoutMs", 50L);
+    }
+
+    @Test
+    void publishesWithEventIdAsMessageIdAndMarksAckedEvents() {
+        stubPending(List.of(event(1L), event(2L)));
+        confirmAll(Set.of());
+
+        assertThat(relay.publishBatch()).isEqualTo(2);
+
+        ArgumentCaptor<Message> messages = ArgumentCaptor.forClass(Message.class);
+        verify(rabbitTemplate, times(2)).send(eq("booking.events"), eq("booking.confirmed"),
+                messages.capture(), any(CorrelationData.class));
+        assertThat(messages.getAllValues()).extracting(m -> m.getMessageProperties().getMessageId())
+                .containsExactly("1", "2");
+        assertThat(new String(messages.getValue().getBody())).isEqualTo("{\"bookingId\":2}");
+        verify(repository).markPublished(eq(List.of(1L, 2L)), any(LocalDateTime.class));
+        verify(repository, never()).markAttempted(anyCollection());
+    }
+
+    @Test
+    void nackedAndUnconfirmedEventsAreRetriedAndStopTheDrain() {
+        stubPending(List.of(event(1L), event(2L)));
+        confirmAll(Set.of("2"));
+
+        assertThat(relay.publishBatch()).isZero();
+
+        verify(repository).markPublished(eq(List.of(1L)), any(LocalDateTime.class));
+        verify(repository).markAttempted(List.of(2L));
+    }
+
+    @Test
+    void eventsWithoutAnyConfirmTimeOutAndAreRetried() {
+        stubPending(List.of(event(1L)));
+
+        assertThat(relay.publishBatch()).isZero();
+
+        verify(repository, never()).markPublished(anyCollection(), any());
+        verify(repository).markAttempted(List.of(1L));
+    }
+
+    @Test
+    void drainLoopsWhileBatchesComeBackFull() {
+        when(repository.findUnpublishedIds(any(Limit.class)))
+                .thenReturn(List.of(1L, 2L), List.of(3L), List.of());
+        when(repository.lockUnpublished(anyCollection())).thenAnswer(inv ->
+                inv.<Collection<Long>>getArgument(0).stream().map(OutboxRelayTest::event).toList());
+        confirmAll(Set.of());
+
+        relay.drain();
+
+        verify(repository, times(2)).findUnpublishedIds(any(Limit.class));
+        verify(repository).markPublished(eq(List.of(1L, 2L)), any(LocalDateTime.class));
+        verify(repository).markPublished(eq(List.of(3L)), any(LocalDateTime.class));
+    }
+
+    @Test
+    void skipsBatchWhenAnotherRelayLockedTheRows() {
+        when(repository.findUnpublishedIds(any(Limit.class))).thenReturn(List.of(1L));
+        when(repository.lockUnpublished(anyCollection())).thenReturn(List.of());
+
+        assertThat(relay.publishBatch()).isZero();
+
+        verifyNoInteractions(rabbitTemplate);
+    }
+
+    private void stubPending(List<OutboxEvent> events) {
+        when(repository.findUnpublishedIds(any(Limit.class)))
+                .thenReturn(events.stream().map(OutboxEvent::getId).toList());
+        when(repository.lockUnpublished(anyCollection())).thenReturn(events);
+    }
+
+    /** Simula publisher confirms: ack salvo para los ids de nacked */
+    private void confirmAll(Set<String> nacked) {
+        doAnswer(inv -> {
+            CorrelationData correlation = inv.getArgument(3);
+            boolean ack = !nacked.contains(correlation.getId());
+            correlation.getFuture().complete(new CorrelationData.Confirm(ack, ack ? null : "nack"));
+            return null;
+        }).when(rabbitTemplate).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+    }
+
+    private static OutboxEvent event(Long id) {
+        return OutboxEvent.builder()
+                .id(id)
+                .aggregateId(id)
+                .eventType("BookingConfirmed")
+                .exchange("booking.events")
+                .routingKey("booking.confirmed")
+                .payload("{\"bookingId\":" + id + "}")
+                .build();
+    }
+}
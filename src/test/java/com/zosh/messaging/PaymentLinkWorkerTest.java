@@ -0,0 +1,127 @@
+package com.zosh.messaging;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.zosh.domain.PaymentMethod;
+import com.zosh.metrics.BookingMetrics;
+import com.zosh.modal.Booking;
+import com.zosh.modal.OutboxEvent;
+import com.zosh.payload.response.PaymentLinkResponse;
+import com.zosh.repository.OutboxEventRepository;
+import com.zosh.service.BookingService;
+import com.zosh.service.clients.PaymentFeignClient;
+import com.zosh.service.clients.PaymentServiceCredentials;
+import com.zosh.service.clients.RemoteCallGuard;
+import feign.FeignException;
+import feign.Request;
+import feign.RetryableException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class PaymentLinkWorkerTest {
+
+    private static final Long BOOKING_ID = 42L;
+
+    private BookingService bookingService;
+    private PaymentFeignClient paymentService;
+    private PaymentLinkWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        bookingService = mock(BookingService.class);
+        paymentService = mock(PaymentFeignClient.class);
+        BookingMetrics metrics = new BookingMetrics(new SimpleMeterRegistry());
+        RemoteCallGuard guard = new RemoteCallGuard(CircuitBreakerRegistry.ofDefaults(),
+                BulkheadRegistry.ofDefaults(), new SyncTaskExecutor(), metrics);
+        worker = new PaymentLinkWorker(bookingService, paymentService, guard,
+                new PaymentServiceCredentials("service-secret"), metrics);
+    }
+
+    @Test
+    void commandWrittenToOutboxCarriesNoCredentials() throws Exception {
+        OutboxEventRepository repository = mock(OutboxEventRepository.class);
+        ObjectMapper mapper = JsonMapper.builder().findAndAddModules().build();
+        new BookingOutbox(repository, mapper)
+                .paymentLinkRequested(Booking.builder().id(BOOKING_ID).build(), PaymentMethod.STRIPE);
+
+        ArgumentCaptor<OutboxEvent> saved = ArgumentCaptor.forClass(OutboxEvent.class);
+        verify(repository).save(saved.capture());
+        Map<String, Object> payload = mapper.readValue(saved.getValue().getPayload(),
+                new TypeReference<Map<String, Object>>() { });
+        assertThat(payload.keySet()).containsExactlyInAnyOrder("bookingId", "paymentMethod", "requestedAt");
+        assertThat(saved.getValue().getRoutingKey()).isEqualTo(BookingOutbox.PAYMENT_PROCESS);
+    }
+
+    @Test
+    void callsPaymentServiceWithServiceCredentialAndStoresLink() throws Exception {
+        Booking booking = Booking.builder().id(BOOKING_ID).customerId(7L).build();
+        when(bookingService.getBookingAwaitingPaymentLink(BOOKING_ID)).thenReturn(booking);
+        when(paymentService.createPaymentLinkAsService(any(), any(), any(), any()))
+                .thenReturn(ResponseEntity.ok(new PaymentLinkResponse("https://pay/1", "plink_1")));
+        when(bookingService.attachPaymentLink(BOOKING_ID, "https://pay/1", "plink_1")).thenReturn(true);
+
+        worker.createPaymentLink(command());
+
+        verify(paymentService).createPaymentLinkAsService("service-secret", 7L, booking, PaymentMethod.STRIPE);
+        verify(paymentService, never()).createPaymentLink(any(), any(), any());
+        verify(bookingService).attachPaymentLink(BOOKING_ID, "https://pay/1", "plink_1");
+        verify(bookingService, never()).markPaymentLinkFailed(anyLong());
+    }
+
+    @Test
+    void skipsBookingsNoLongerAwaitingLink() throws Exception {
+        when(bookingService.getBookingAwaitingPaymentLink(BOOKING_ID)).thenReturn(null);
+
+        worker.createPaymentLink(command());
+
+        verifyNoInteractions(paymentService);
+    }
+
+    @Test
+    void unavailablePaymentServiceIsRethrownForRetry() throws Exception {
+        when(bookingService.getBookingAwaitingPaymentLink(BOOKING_ID)).thenReturn(Booking.builder().id(BOOKING_ID).build());
+        when(paymentService.createPaymentLinkAsService(any(), any(), any(), any())).thenThrow(new RetryableException(
+                -1, "connect timed out", Request.HttpMethod.POST, (Long) null, request()));
+
+        assertThatThrownBy(() -> worker.createPaymentLink(command())).isInstanceOf(RetryableException.class);
+        verify(bookingService, never()).markPaymentLinkFailed(anyLong());
+    }
+
+    @Test
+    void rejectedRequestMarksLinkFailedWithoutRetry() throws Exception {
+        when(bookingService.getBookingAwaitingPaymentLink(BOOKING_ID)).thenReturn(Booking.builder().id(BOOKING_ID).build());
+        when(paymentService.createPaymentLinkAsService(any(), any(), any(), any())).thenThrow(
+                FeignException.errorStatus("createPaymentLink", feign.Response.builder()
+                        .status(400).request(request()).headers(Map.of()).build()));
+
+        worker.createPaymentLink(command());
+
+        verify(bookingService).markPaymentLinkFailed(eq(BOOKING_ID));
+    }
+
+    private static PaymentLinkCommand command() {
+        return PaymentLinkCommand.builder().bookingId(BOOKING_ID).paymentMethod(PaymentMethod.STRIPE).build();
+    }
+
+    private static Request request() {
+        return Request.create(Request.HttpMethod.POST, "http://payment/api/payments/create",
+                Map.of(), new byte[0], StandardCharsets.UTF_8, null);
+    }
+}
@@ -0,0 +1,45 @@
+package com.zosh.payload.request;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BookingCursorTest {
+
+    @Test
+    void encodeDecodeRoundTrip() throws Exception {
+        BookingCursor cursor = new BookingCursor(LocalDateTime.of(2024, 3, 4, 10, 15, 30, 123_000_000), 42L);
+
+        assertThat(BookingCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    @Test
+    void tokenIsUrlSafeWithoutPadding() {
+        String token = new BookingCursor(LocalDateTime.of(2024, 3, 4, 10, 0), 9_999_999L).encode();
+
+        assertThat(token).doesNotContain("+", "/", "=");
+    }
+
+    @Test
+    void missingTokenStartsFromTheBeginning() throws Exception {
+        assertThat(BookingCursor.decode(null)).isSameAs(BookingCursor.START);
+        assertThat(BookingCursor.decode("  ")).isSameAs(BookingCursor.START);
+    }
+
+    @Test
+    void malformedTokensAreRejected() {
+        assertThatThrownBy(() -> BookingCursor.decode("not base64!")).hasMessage("Invalid cursor");
+        assertThatThrownBy(() -> BookingCursor.decode(encode("2024-03-04T10:00"))).hasMessage("Invalid cursor");
+        assertThatThrownBy(() -> BookingCursor.decode(encode("yesterday|42"))).hasMessage("Invalid cursor");
+        assertThatThrownBy(() -> BookingCursor.decode(encode("2024-03-04T10:00|abc"))).hasMessage("Invalid cursor");
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
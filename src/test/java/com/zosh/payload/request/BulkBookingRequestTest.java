@@ -0,0 +1,84 @@
+package com.zosh.payload.request;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BulkBookingRequestTest {
+
+    private static final LocalDateTime MONDAY = LocalDateTime.of(2024, 3, 4, 10, 0);
+    private static final int MAX = 52;
+
+    @Test
+    void expandsWeeklyRecurrenceByDefault() throws Exception {
+        BulkBookingRequest request = new BulkBookingRequest();
+        request.setStartTime(MONDAY);
+        request.setOccurrences(3);
+
+        assertThat(request.resolveStartTimes(MAX))
+                .containsExactly(MONDAY, MONDAY.plusWeeks(1), MONDAY.plusWeeks(2));
+    }
+
+    @Test
+    void mergesExplicitTimesWithRecurrenceWithoutDuplicatesAndSorted() throws Exception {
+        BulkBookingRequest request = new BulkBookingRequest();
+        request.setStartTimes(List.of(MONDAY.plusDays(2), MONDAY.plusDays(2), MONDAY.plusDays(1)));
+        request.setStartTime(MONDAY);
+        request.setEveryDays(1);
+        request.setOccurrences(3);
+
+        assertThat(request.resolveStartTimes(MAX))
+                .containsExactly(MONDAY, MONDAY.plusDays(1), MONDAY.plusDays(2));
+    }
+
+    @Test
+    void duplicatesCountOnceTowardsTheLimit() throws Exception {
+        BulkBookingRequest request = new BulkBookingRequest();
+        request.setStartTimes(List.of(MONDAY, MONDAY.plusDays(1)));
+        request.setStartTime(MONDAY);
+        request.setEveryDays(1);
+        request.setOccurrences(2);
+
+        assertThat(request.resolveStartTimes(2)).containsExactly(MONDAY, MONDAY.plusDays(1));
+    }
+
+    @Test
+    void rejectsMoreOccurrencesThanTheLimitBeforeExpanding() {
+        BulkBookingRequest request = new BulkBookingRequest();
+        request.setStartTime(MONDAY);
+        request.setOccurrences(Integer.MAX_VALUE);
+
+        assertThatThrownBy(() -> request.resolveStartTimes(MAX))
+                .hasMessage("A bulk booking must have between 1 and 52 occurrences");
+    }
+
+    @Test
+    void rejectsWhenMergedListExceedsTheLimit() {
+        BulkBookingRequest request = new BulkBookingRequest();
+        request.setStartTimes(List.of(MONDAY.minusDays(1), MONDAY.minusDays(2)));
+        request.setStartTime(MONDAY);
+        request.setOccurrences(2);
+
+        assertThatThrownBy(() -> request.resolveStartTimes(3)).hasMessageContaining("between 1 and 3");
+    }
+
+    @Test
+    void rejectsEmptyRequestsAndInvalidRecurrence() {
+        assertThatThrownBy(() -> new BulkBookingRequest().resolveStartTimes(MAX))
+                .hasMessageContaining("between 1 and");
+
+        BulkBookingRequest everyZeroDays = new BulkBookingRequest();
+        everyZeroDays.setStartTime(MONDAY);
+        everyZeroDays.setEveryDays(0);
+        assertThatThrownBy(() -> everyZeroDays.resolveStartTimes(MAX)).hasMessageContaining("everyDays");
+
+        BulkBookingRequest negative = new BulkBookingRequest();
+        negative.setStartTime(MONDAY);
+        negative.setOccurrences(-1);
+        assertThatThrownBy(() -> negative.resolveStartTimes(MAX)).hasMessageContaining("occurrences");
+    }
+}
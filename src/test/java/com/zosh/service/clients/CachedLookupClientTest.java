@@ -0,0 +1,164 @@
+package com.zosh.service.clients;
+
+import com.zosh.metrics.BookingMetrics;
+import com.zosh.payload.dto.SalonDTO;
+import com.zosh.payload.dto.UserDTO;
+import feign.Request;
+import feign.RetryableException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class CachedLookupClientTest {
+
+    private SalonFeignClient salonService;
+    private UserFeignClient userService;
+
+    @BeforeEach
+    void setUp() {
+        salonService = mock(SalonFeignClient.class);
+        userService = mock(UserFeignClient.class);
+    }
+
+    @Test
+    void cachesUserUntilTokenExpiry() throws Exception {
+        String jwt = token(Instant.now().plusSeconds(600));
+        when(userService.getUserFromJwtToken(jwt)).thenReturn(ResponseEntity.ok(new UserDTO()));
+        CachedLookupClient client = client(600);
+
+        client.getUserFromJwtToken(jwt);
+        client.getUserFromJwtToken(jwt);
+
+        verify(userService, times(1)).getUserFromJwtToken(jwt);
+    }
+
+    @Test
+    void neverServesAnExpiredTokenFromCache() throws Exception {
+        String jwt = token(Instant.now().minusSeconds(1));
+        when(userService.getUserFromJwtToken(jwt)).thenReturn(ResponseEntity.ok(new UserDTO()));
+        CachedLookupClient client = client(600);
+
+        client.getUserFromJwtToken(jwt);
+        client.getUserFromJwtToken(jwt);
+
+        verify(userService, times(2)).getUserFromJwtToken(jwt);
+    }
+
+    @Test
+    void tokensWithoutExpAreNotCached() throws Exception {
+        when(userService.getUserFromJwtToken("Bearer opaque")).thenReturn(ResponseEntity.ok(new UserDTO()));
+        CachedLookupClient client = client(600);
+
+        client.getUserFromJwtToken("Bearer opaque");
+        client.getUserFromJwtToken("Bearer opaque");
+
+        verify(userService, times(2)).getUserFromJwtToken("Bearer opaque");
+    }
+
+    @Test
+    void userLookupFailsInsteadOfServingStaleWhenUnavailable() throws Exception {
+        String jwt = token(Instant.now().plusSeconds(600));
+        when(userService.getUserFromJwtToken(jwt))
+                .thenReturn(ResponseEntity.ok(new UserDTO()))
+                .thenThrow(unavailable());
+        CachedLookupClient client = client(0);
+
+        client.getUserFromJwtToken(jwt);
+
+        assertThatThrownBy(() -> client.getUserFromJwtToken(jwt)).isInstanceOf(RetryableException.class);
+    }
+
+    @Test
+    void salonByOwnerFailsInsteadOfServingStaleWhenUnavailable() throws Exception {
+        String jwt = token(Instant.now().plusSeconds(600));
+        when(salonService.getSalonByOwner(jwt))
+                .thenReturn(ResponseEntity.ok(new SalonDTO()))
+                .thenThrow(unavailable());
+        CachedLookupClient client = client(0);
+
+        client.getSalonByOwner(jwt);
+
+        assertThatThrownBy(() -> client.getSalonByOwner(jwt)).isInstanceOf(RetryableException.class);
+    }
+
+    @Test
+    void salonLookupStillFallsBackToStaleEntry() throws Exception {
+        SalonDTO salon = new SalonDTO();
+        salon.setId(2L);
+        when(salonService.getSalonById(anyLong(), any()))
+                .thenReturn(ResponseEntity.ok(salon))
+                .thenThrow(unavailable());
+        CachedLookupClient client = client(0);
+
+        client.getSalonById(2L, "Bearer any");
+
+        assertThat(client.getSalonById(2L, "Bearer any")).isSameAs(salon);
+    }
+
+    @Test
+    void evictUserDropsEntriesOfThatUserAndSalonOwnerOnly() throws Exception {
+        String jwt = token(Instant.now().plusSeconds(600));
+        String other = token(Instant.now().plusSeconds(601));
+        UserDTO user = new UserDTO();
+        user.setId(42L);
+        UserDTO otherUser = new UserDTO();
+        otherUser.setId(7L);
+        SalonDTO salon = new SalonDTO();
+        salon.setOwnerId(42L);
+        when(userService.getUserFromJwtToken(jwt)).thenReturn(ResponseEntity.ok(user));
+        when(userService.getUserFromJwtToken(other)).thenReturn(ResponseEntity.ok(otherUser));
+        when(salonService.getSalonByOwner(jwt)).thenReturn(ResponseEntity.ok(salon));
+        CachedLookupClient client = client(600);
+        client.getUserFromJwtToken(jwt);
+        client.getUserFromJwtToken(other);
+        client.getSalonByOwner(jwt);
+
+        client.evictUser(42L);
+        client.getUserFromJwtToken(jwt);
+        client.getUserFromJwtToken(other);
+        client.getSalonByOwner(jwt);
+
+        verify(userService, times(2)).getUserFromJwtToken(jwt);
+        verify(userService, times(1)).getUserFromJwtToken(other);
+        verify(salonService, times(2)).getSalonByOwner(jwt);
+    }
+
+    /** ttlSeconds para todas las cachés; stale-ttl fijo en una hora */
+    private CachedLookupClient client(long ttlSeconds) {
+        BookingMetrics metrics = new BookingMetrics(new SimpleMeterRegistry());
+        RemoteCallGuard guard = new RemoteCallGuard(CircuitBreakerRegistry.ofDefaults(),
+                BulkheadRegistry.ofDefaults(), new SyncTaskExecutor(), metrics);
+        return new CachedLookupClient(salonService, mock(ServiceOfferingFeignClient.class), userService,
+                guard, metrics, new SimpleMeterRegistry(),
+                100, ttlSeconds, 100, ttlSeconds, 100, ttlSeconds, 100, ttlSeconds, 3600);
+    }
+
+    private static String token(Instant exp) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String header = encoder.encodeToString("{\"alg\":\"none\"}".getBytes(StandardCharsets.UTF_8));
+        String payload = encoder.encodeToString(
+                ("{\"sub\":\"42\",\"exp\":" + exp.getEpochSecond() + "}").getBytes(StandardCharsets.UTF_8));
+        return "Bearer " + header + "." + payload + ".sig";
+    }
+
+    private static RetryableException unavailable() {
+        return new RetryableException(-1, "connect timed out", Request.HttpMethod.GET, (Long) null,
+                Request.create(Request.HttpMethod.GET, "http://user/api/users/profile", Map.of(), new byte[0],
+                        StandardCharsets.UTF_8, null));
+    }
+}
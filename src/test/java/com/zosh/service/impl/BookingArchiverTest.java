@@ -0,0 +1,99 @@
+package com.zosh.service.impl;
+
+import com.zosh.domain.BookingStatus;
+import com.zosh.metrics.BookingMetrics;
+import com.zosh.modal.ArchivedBooking;
+import com.zosh.modal.Booking;
+import com.zosh.repository.BookingRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class BookingArchiverTest {
+
+    private BookingRepository bookingRepository;
+    private EntityManager entityManager;
+    private SimpleMeterRegistry registry;
+    private BookingArchiver archiver;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository = mock(BookingRepository.class);
+        entityManager = mock(EntityManager.class);
+        registry = new SimpleMeterRegistry();
+        archiver = new BookingArchiver(bookingRepository, entityManager, new BookingMetrics(registry),
+                mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(archiver, "horizonDays", 365L);
+        ReflectionTestUtils.setField(archiver, "batchSize", 2);
+        when(bookingRepository.findByIdIn(anyCollection())).thenAnswer(inv ->
+                inv.<Collection<Long>>getArgument(0).stream().map(BookingArchiverTest::booking).toList());
+    }
+
+    @Test
+    void copiesBatchToArchiveThenDeletesItInTheSameTransaction() {
+        LocalDateTime cutoff = LocalDateTime.of(2023, 1, 1, 0, 0);
+        when(bookingRepository.findIdsStartedBefore(eq(cutoff), eq(BookingStatus.PENDING), any(Limit.class)))
+                .thenReturn(List.of(1L, 2L));
+
+        assertThat(archiver.archiveBatch(cutoff)).isEqualTo(2);
+
+        ArgumentCaptor<ArchivedBooking> archived = ArgumentCaptor.forClass(ArchivedBooking.class);
+        InOrder order = inOrder(entityManager, bookingRepository);
+        order.verify(entityManager, times(2)).persist(archived.capture());
+        order.verify(bookingRepository).deleteAll(anyList());
+        order.verify(entityManager).flush();
+        order.verify(entityManager).clear();
+        assertThat(archived.getAllValues()).extracting(ArchivedBooking::getId).containsExactly(1L, 2L);
+        assertThat(archived.getAllValues()).allSatisfy(a -> assertThat(a.getArchivedAt()).isNotNull());
+    }
+
+    @Test
+    void emptyBatchTouchesNothing() {
+        when(bookingRepository.findIdsStartedBefore(any(), any(), any(Limit.class))).thenReturn(List.of());
+
+        assertThat(archiver.archiveBatch(LocalDateTime.now())).isZero();
+
+        verify(bookingRepository, never()).findByIdIn(anyCollection());
+        verifyNoInteractions(entityManager);
+    }
+
+    @Test
+    void archiveAllLoopsWhileBatchesAreFullFromStartOfHorizonDay() {
+        when(bookingRepository.findIdsStartedBefore(any(), any(), any(Limit.class)))
+                .thenReturn(List.of(1L, 2L), List.of(3L));
+
+        archiver.archiveAll();
+
+        ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(bookingRepository, times(2)).findIdsStartedBefore(cutoff.capture(), eq(BookingStatus.PENDING),
+                eq(Limit.of(2)));
+        assertThat(cutoff.getValue()).isEqualTo(LocalDate.now().minusDays(365).atStartOfDay());
+        assertThat(registry.counter("booking.archived").count()).isEqualTo(3.0);
+    }
+
+    private static Booking booking(Long id) {
+        Booking booking = new Booking();
+        booking.setId(id);
+        booking.setStatus(BookingStatus.CONFIRMED);
+        booking.setServiceIds(Set.of(10L));
+        return booking;
+    }
+}
@@ -0,0 +1,105 @@
+package com.zosh.service.impl;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zosh.metrics.BookingMetrics;
+import com.zosh.modal.Booking;
+import com.zosh.payload.dto.SalonDTO;
+import com.zosh.payload.dto.ServiceOfferingDTO;
+import com.zosh.payload.response.NormalizedBookingsResponse;
+import com.zosh.service.clients.CachedLookupClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class BookingEnricherTest {
+
+    private CachedLookupClient lookupClient;
+    private BookingEnricher enricher;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        lookupClient = mock(CachedLookupClient.class);
+        enricher = new BookingEnricher(lookupClient, new BookingMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(enricher, "maxIdsPerCall", 100);
+        when(lookupClient.getSalonById(eq(1L), any())).thenReturn(salon(1L));
+        when(lookupClient.getServicesByIds(anySet())).thenReturn(Set.of(service(10L), service(11L)));
+    }
+
+    @Test
+    void normalizedListsEachSalonAndServiceOnce() throws Exception {
+        List<Booking> bookings = List.of(booking(1L, Set.of(10L, 11L)), booking(2L, Set.of(10L)));
+
+        NormalizedBookingsResponse response = enricher.toNormalized(bookings, "Bearer jwt");
+
+        assertThat(response.getSalons()).containsOnlyKeys(1L);
+        assertThat(response.getServices()).containsOnlyKeys(10L, 11L);
+        assertThat(response.getBookings()).allSatisfy(dto -> {
+            assertThat(dto.getSalon()).isNull();
+            assertThat(dto.getServices()).isNull();
+        });
+        verify(lookupClient, times(1)).getSalonById(1L, "Bearer jwt");
+        verify(lookupClient, times(1)).getServicesByIds(Set.of(10L, 11L));
+    }
+
+    @Test
+    void normalizedJsonCarriesOnlyIdsInEachBooking() throws Exception {
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+        NormalizedBookingsResponse response = enricher.toNormalized(
+                List.of(booking(1L, Set.of(10L))), "Bearer jwt");
+
+        Map<String, Object> json = mapper.readValue(mapper.writeValueAsString(response),
+                new TypeReference<Map<String, Object>>() {});
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> booking = ((List<Map<String, Object>>) json.get("bookings")).get(0);
+        assertThat(booking).containsKeys("salonId", "servicesIds", "customerId")
+                .doesNotContainKeys("salon", "services", "customer");
+        assertThat(json).containsKeys("salons", "services");
+    }
+
+    @Test
+    void emptyListSkipsLookups() {
+        NormalizedBookingsResponse response = enricher.toNormalized(List.of(), "Bearer jwt");
+
+        assertThat(response.getBookings()).isEmpty();
+        assertThat(response.getSalons()).isEmpty();
+        assertThat(response.getServices()).isEmpty();
+        verifyNoInteractions(lookupClient);
+    }
+
+    private static Booking booking(Long id, Set<Long> serviceIds) {
+        Booking booking = new Booking();
+        booking.setId(id);
+        booking.setSalonId(1L);
+        booking.setCustomerId(7L);
+        booking.setStartTime(LocalDateTime.of(2024, 3, 4, 10, 0));
+        booking.setEndTime(LocalDateTime.of(2024, 3, 4, 11, 0));
+        booking.setServiceIds(serviceIds);
+        return booking;
+    }
+
+    private static SalonDTO salon(Long id) {
+        SalonDTO salon = new SalonDTO();
+        salon.setId(id);
+        return salon;
+    }
+
+    private static ServiceOfferingDTO service(Long id) {
+        ServiceOfferingDTO service = new ServiceOfferingDTO();
+        service.setId(id);
+        return service;
+    }
+}
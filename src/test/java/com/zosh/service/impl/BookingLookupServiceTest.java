@@ -0,0 +1,100 @@
+package com.zosh.service.impl;
+
+import com.zosh.metrics.BookingMetrics;
+import com.zosh.payload.dto.SalonDTO;
+import com.zosh.payload.dto.UserDTO;
+import com.zosh.service.clients.CachedLookupClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class BookingLookupServiceTest {
+
+    private static final String JWT = "Bearer customer";
+
+    private CachedLookupClient lookupClient;
+    private SimpleMeterRegistry registry;
+    /** Tareas aceptadas por el executor y todavía no ejecutadas */
+    private final List<Runnable> queued = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        lookupClient = mock(CachedLookupClient.class);
+        registry = new SimpleMeterRegistry();
+        queued.clear();
+    }
+
+    @Test
+    void returnsAllThreeLookups() throws Exception {
+        UserDTO user = new UserDTO();
+        SalonDTO salon = new SalonDTO();
+        when(lookupClient.getUserFromJwtToken(JWT)).thenReturn(user);
+        when(lookupClient.getSalonById(2L, JWT)).thenReturn(salon);
+        when(lookupClient.getServicesByIds(Set.of(3L))).thenReturn(Set.of());
+
+        BookingLookupService.CheckoutLookup lookup = service(Runnable::run).fetch(JWT, 2L, Set.of(3L));
+
+        assertThat(lookup.user()).isSameAs(user);
+        assertThat(lookup.salon()).isSameAs(salon);
+        assertThat(lookup.services()).isEmpty();
+    }
+
+    @Test
+    void rethrowsTheLookupFailure() throws Exception {
+        when(lookupClient.getSalonById(2L, JWT)).thenThrow(new Exception("Salon not found"));
+
+        assertThatThrownBy(() -> service(Runnable::run).fetch(JWT, 2L, Set.of(3L)))
+                .hasMessage("Salon not found");
+    }
+
+    @Test
+    void saturatedPoolFailsFastAndCancelsWhatWasQueued() throws Exception {
+        TaskExecutor acceptsOne = task -> {
+            if (!queued.isEmpty()) {
+                throw new RejectedExecutionException("full");
+            }
+            queued.add(task);
+        };
+
+        assertThatThrownBy(() -> service(acceptsOne).fetch(JWT, 2L, Set.of(3L)))
+                .hasMessageContaining("retry later");
+
+        queued.forEach(Runnable::run);
+        verify(lookupClient, never()).getUserFromJwtToken(any());
+        assertThat(registry.find("booking.remote.event").tag("event", "rejected").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void timeoutCancelsEachPendingLookup() throws Exception {
+        BookingLookupService service = service(queued::add);
+        ReflectionTestUtils.setField(service, "lookupTimeoutMs", 50L);
+
+        assertThatThrownBy(() -> service.fetch(JWT, 2L, Set.of(3L)))
+                .hasMessageStartingWith("Timed out");
+
+        // cancelar solo el allOf dejaría que estas tareas llamaran a los servicios
+        assertThat(queued).hasSize(3);
+        queued.forEach(Runnable::run);
+        verifyNoInteractions(lookupClient);
+    }
+
+    private BookingLookupService service(TaskExecutor executor) {
+        BookingLookupService service = new BookingLookupService(lookupClient, executor,
+                new BookingMetrics(registry));
+        ReflectionTestUtils.setField(service, "lookupTimeoutMs", 1000L);
+        return service;
+    }
+}
@@ -0,0 +1,141 @@
+package com.zosh.service.impl;
+
+import com.zosh.domain.BookingStatus;
+import com.zosh.modal.Booking;
+import com.zosh.modal.BookingDailyRollup;
+import com.zosh.repository.ArchivedBookingRepository;
+import com.zosh.repository.BookingDailyRollupRepository;
+import com.zosh.repository.BookingRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class BookingRollupServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 4);
+
+    private BookingRepository bookingRepository;
+    private BookingDailyRollupRepository rollupRepository;
+    private EntityManager entityManager;
+    private BookingRollupService rollups;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository = mock(BookingRepository.class);
+        rollupRepository = mock(BookingDailyRollupRepository.class);
+        entityManager = mock(EntityManager.class);
+        rollups = new BookingRollupService(bookingRepository, mock(ArchivedBookingRepository.class),
+                rollupRepository, entityManager, mock(PlatformTransactionManager.class));
+        when(rollupRepository.applyDelta(anyLong(), any(), any(), anyLong(), any())).thenReturn(1);
+    }
+
+    @Test
+    void batchAppliesOneDeltaPerSalonDayAndStatus() {
+        when(rollupRepository.existsBySalonId(1L)).thenReturn(true);
+
+        rollups.onStatusChanged(List.of(
+                cancelled(1L, DAY, "10.00"),
+                cancelled(1L, DAY, "5.00"),
+                cancelled(1L, DAY.plusDays(1), "7.00")), BookingStatus.PENDING);
+
+        verify(rollupRepository).applyDelta(1L, DAY, BookingStatus.PENDING, -2, new BigDecimal("-15.00"));
+        verify(rollupRepository).applyDelta(1L, DAY, BookingStatus.CANCELLED, 2, new BigDecimal("15.00"));
+        verify(rollupRepository).applyDelta(1L, DAY.plusDays(1), BookingStatus.PENDING, -1, new BigDecimal("-7.00"));
+        verify(rollupRepository).applyDelta(1L, DAY.plusDays(1), BookingStatus.CANCELLED, 1, new BigDecimal("7.00"));
+        verify(rollupRepository, times(1)).existsBySalonId(1L);
+    }
+
+    @Test
+    void salonsWithoutRollupsAreSkipped() {
+        when(rollupRepository.existsBySalonId(2L)).thenReturn(false);
+
+        rollups.onStatusChanged(List.of(cancelled(2L, DAY, "10.00"), cancelled(2L, DAY, "3.00")),
+                BookingStatus.PENDING);
+
+        verify(rollupRepository, never()).applyDelta(anyLong(), any(), any(), anyLong(), any());
+        verify(rollupRepository, times(1)).existsBySalonId(2L);
+    }
+
+    @Test
+    void rebuildLocksRowsFirstAndCorrectsThemInPlace() {
+        BookingDailyRollup pending = row(BookingStatus.PENDING, 5L, "50.00");
+        BookingDailyRollup cancelled = row(BookingStatus.CANCELLED, 1L, "10.00");
+        when(rollupRepository.lockBySalonId(1L)).thenReturn(List.of(pending, cancelled));
+        stubRollupRows(rollupRow(BookingStatus.PENDING, "20.00"), rollupRow(BookingStatus.PENDING, "30.00"));
+
+        rollups.rebuild(1L);
+
+        InOrder order = inOrder(rollupRepository, bookingRepository);
+        order.verify(rollupRepository).lockBySalonId(1L);
+        order.verify(bookingRepository).findRollupRowsBySalonId(1L);
+        assertThat(pending.getBookingCount()).isEqualTo(2L);
+        assertThat(pending.getEarnings()).isEqualByComparingTo("50.00");
+        assertThat(cancelled.getBookingCount()).isZero();
+        assertThat(cancelled.getEarnings()).isEqualByComparingTo("0");
+        verifyNoInteractions(entityManager);
+    }
+
+    @Test
+    void rebuildInsertsMissingRowsInOneBatchThenRelocks() {
+        BookingDailyRollup inserted = row(BookingStatus.CONFIRMED, 0L, "0");
+        when(rollupRepository.lockBySalonId(1L)).thenReturn(List.of(), List.of(inserted));
+        stubRollupRows(rollupRow(BookingStatus.CONFIRMED, "25.00"));
+
+        rollups.rebuild(1L);
+
+        ArgumentCaptor<BookingDailyRollup> persisted = ArgumentCaptor.forClass(BookingDailyRollup.class);
+        verify(entityManager).persist(persisted.capture());
+        assertThat(persisted.getValue().getBookingCount()).isZero();
+        assertThat(persisted.getValue().getStatus()).isEqualTo(BookingStatus.CONFIRMED);
+        verify(rollupRepository, times(2)).lockBySalonId(1L);
+        verify(rollupRepository, never()).saveAll(any());
+        assertThat(inserted.getBookingCount()).isEqualTo(1L);
+        assertThat(inserted.getEarnings()).isEqualByComparingTo("25.00");
+    }
+
+    private void stubRollupRows(BookingRepository.RollupRow... rows) {
+        when(bookingRepository.findRollupRowsBySalonId(1L)).thenReturn(List.of(rows));
+    }
+
+    private static BookingRepository.RollupRow rollupRow(BookingStatus status, String price) {
+        BookingRepository.RollupRow row = mock(BookingRepository.RollupRow.class);
+        when(row.getStatus()).thenReturn(status);
+        when(row.getStartTime()).thenReturn(DAY.atTime(10, 0));
+        when(row.getTotalPrice()).thenReturn(new BigDecimal(price));
+        return row;
+    }
+
+    private static BookingDailyRollup row(BookingStatus status, Long count, String earnings) {
+        return BookingDailyRollup.builder()
+                .salonId(1L)
+                .day(DAY)
+                .status(status)
+                .bookingCount(count)
+                .earnings(new BigDecimal(earnings))
+                .build();
+    }
+
+    private static Booking cancelled(Long salonId, LocalDate day, String price) {
+        LocalDateTime start = day.atTime(10, 0);
+        return Booking.builder()
+                .salonId(salonId)
+                .startTime(start)
+                .endTime(start.plusHours(1))
+                .totalPrice(new BigDecimal(price))
+                .status(BookingStatus.CANCELLED)
+                .build();
+    }
+}
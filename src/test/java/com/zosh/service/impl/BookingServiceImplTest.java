@@ -0,0 +1,214 @@
+package com.zosh.service.impl;
+
+import com.zosh.domain.BookingStatus;
+import com.zosh.messaging.BookingOutbox;
+import com.zosh.metrics.BookingMetrics;
+import com.zosh.modal.ArchivedBooking;
+import com.zosh.modal.Booking;
+import com.zosh.payload.dto.SalonDTO;
+import com.zosh.payload.dto.ServiceOfferingDTO;
+import com.zosh.payload.dto.UserDTO;
+import com.zosh.repository.ArchivedBookingRepository;
+import com.zosh.repository.BookingRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class BookingServiceImplTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 3, 4, 10, 0);
+
+    private BookingRepository bookingRepository;
+    private ArchivedBookingRepository archivedRepository;
+    private BookingIdAllocator idAllocator;
+    private BookingSlotIndex slotIndex;
+    private SalonReportAggregator reportAggregator;
+    private BookingRollupService rollupService;
+    private BookingOutbox bookingOutbox;
+    private BookingServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository = mock(BookingRepository.class);
+        archivedRepository = mock(ArchivedBookingRepository.class);
+        idAllocator = mock(BookingIdAllocator.class);
+        slotIndex = mock(BookingSlotIndex.class);
+        reportAggregator = mock(SalonReportAggregator.class);
+        rollupService = mock(BookingRollupService.class);
+        bookingOutbox = mock(BookingOutbox.class);
+        service = new BookingServiceImpl(bookingRepository, archivedRepository,
+                slotIndex, reportAggregator, rollupService, mock(EntityManager.class),
+                mock(PaymentEventDeduplicator.class), bookingOutbox,
+                new BookingMetrics(new SimpleMeterRegistry()), mock(SalonDayLocker.class), idAllocator);
+    }
+
+    @Test
+    void getBookingByIdFallsBackToArchive() {
+        when(bookingRepository.findById(7L)).thenReturn(Optional.empty());
+        when(archivedRepository.findById(7L)).thenReturn(Optional.of(archived(7L)));
+
+        Booking booking = service.getBookingById(7L);
+
+        assertThat(booking.getId()).isEqualTo(7L);
+        assertThat(booking.getServiceIds()).containsExactly(3L);
+        assertThat(booking.getStatus()).isEqualTo(BookingStatus.CONFIRMED);
+    }
+
+    @Test
+    void getBookingByIdPrefersLiveRow() {
+        Booking live = Booking.builder().id(7L).build();
+        when(bookingRepository.findById(7L)).thenReturn(Optional.of(live));
+
+        assertThat(service.getBookingById(7L)).isSameAs(live);
+        verifyNoInteractions(archivedRepository);
+    }
+
+    @Test
+    void getBookingByIdReturnsNullWhenMissingEverywhere() {
+        when(bookingRepository.findById(7L)).thenReturn(Optional.empty());
+        when(archivedRepository.findById(7L)).thenReturn(Optional.empty());
+
+        assertThat(service.getBookingById(7L)).isNull();
+    }
+
+    @Test
+    void archivedBookingsCannotChangeStatus() {
+        when(bookingRepository.findById(7L)).thenReturn(Optional.empty());
+        when(archivedRepository.findById(7L)).thenReturn(Optional.of(archived(7L)));
+
+        assertThatThrownBy(() -> service.updateBookingStatus(7L, BookingStatus.CANCELLED))
+                .hasMessage("Booking not found");
+        verify(bookingRepository, never()).save(any());
+    }
+
+    @Test
+    void bulkBookingSavesWholeGroupInOneSaveAllWithPreallocatedGroupId() throws Exception {
+        when(idAllocator.next()).thenReturn(500L);
+        when(bookingRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+        List<Booking> group = service.createBookings(
+                List.of(START.plusWeeks(1), START, START.plusWeeks(1)), user(), salon(), services());
+
+        assertThat(group).extracting(Booking::getStartTime).containsExactly(START, START.plusWeeks(1));
+        assertThat(group).extracting(Booking::getGroupId).containsOnly(500L);
+        verify(bookingRepository, times(1)).saveAll(anyList());
+        verify(bookingRepository, never()).save(any());
+    }
+
+    @Test
+    void bulkBookingRejectsOverlappingOccurrences() {
+        assertThatThrownBy(() -> service.createBookings(
+                List.of(START, START.plusMinutes(30)), user(), salon(), services()))
+                .hasMessageStartingWith("Occurrences overlap each other");
+        verifyNoInteractions(idAllocator);
+    }
+
+    @Test
+    void expiresPendingChunkWithOneUpdateAndAggregatedHooks() {
+        LocalDateTime cutoff = START.minusMinutes(30);
+        List<Booking> pending = List.of(pending(1L), pending(2L));
+        when(bookingRepository.findByStatusCreatedBefore(eq(BookingStatus.PENDING), eq(cutoff), any()))
+                .thenReturn(pending);
+        when(bookingRepository.compareAndSetStatusCreatedBefore(eq(List.of(1L, 2L)), eq(BookingStatus.PENDING),
+                eq(BookingStatus.CANCELLED), eq(cutoff), any())).thenReturn(2);
+
+        assertThat(service.expirePendingBookings(cutoff, 200)).isEqualTo(2);
+
+        assertThat(pending).extracting(Booking::getStatus).containsOnly(BookingStatus.CANCELLED);
+        verify(reportAggregator).onStatusChanged(pending, BookingStatus.PENDING);
+        verify(rollupService).onStatusChanged(pending, BookingStatus.PENDING);
+        verify(bookingOutbox).statusChanged(pending, BookingStatus.PENDING);
+        verify(slotIndex).onBookingsChanged(pending);
+        verify(bookingRepository, never()).findIdsByIdInAndStatusAndUpdatedAt(any(), any(), any());
+        verify(bookingRepository, never()).lockByIdOrGroupIdInAndStatus(any(), any());
+    }
+
+    @Test
+    void expiryAppliesHooksOnlyToRowsItsUpdateChanged() {
+        LocalDateTime cutoff = START.minusMinutes(30);
+        Booking stillPending = pending(1L);
+        Booking confirmedMeanwhile = pending(2L);
+        when(bookingRepository.findByStatusCreatedBefore(eq(BookingStatus.PENDING), eq(cutoff), any()))
+                .thenReturn(List.of(stillPending, confirmedMeanwhile));
+        when(bookingRepository.compareAndSetStatusCreatedBefore(any(), any(), any(), any(), any())).thenReturn(1);
+        when(bookingRepository.findIdsByIdInAndStatusAndUpdatedAt(eq(List.of(1L, 2L)), eq(BookingStatus.CANCELLED), any()))
+                .thenReturn(List.of(1L));
+
+        assertThat(service.expirePendingBookings(cutoff, 200)).isEqualTo(1);
+
+        verify(reportAggregator).onStatusChanged(List.of(stillPending), BookingStatus.PENDING);
+        verify(bookingOutbox).statusChanged(List.of(stillPending), BookingStatus.PENDING);
+    }
+
+    @Test
+    void expiryWithNothingPendingTouchesNothing() {
+        when(bookingRepository.findByStatusCreatedBefore(any(), any(), any())).thenReturn(List.of());
+
+        assertThat(service.expirePendingBookings(START, 200)).isZero();
+
+        verify(bookingRepository, never()).compareAndSetStatusCreatedBefore(any(), any(), any(), any(), any());
+        verifyNoInteractions(reportAggregator, rollupService, bookingOutbox, slotIndex);
+    }
+
+    private static Booking pending(Long id) {
+        return Booking.builder()
+                .id(id)
+                .salonId(2L)
+                .startTime(START)
+                .endTime(START.plusHours(1))
+                .totalPrice(BigDecimal.TEN)
+                .status(BookingStatus.PENDING)
+                .build();
+    }
+
+    private static UserDTO user() {
+        UserDTO user = new UserDTO();
+        user.setId(1L);
+        return user;
+    }
+
+    private static SalonDTO salon() {
+        SalonDTO salon = new SalonDTO();
+        salon.setId(2L);
+        salon.setOpenTime(LocalTime.of(9, 0));
+        salon.setCloseTime(LocalTime.of(18, 0));
+        return salon;
+    }
+
+    private static Set<ServiceOfferingDTO> services() {
+        ServiceOfferingDTO service = new ServiceOfferingDTO();
+        service.setId(3L);
+        service.setPrice(20);
+        service.setDuration(60);
+        return Set.of(service);
+    }
+
+    private static ArchivedBooking archived(Long id) {
+        Booking booking = Booking.builder()
+                .id(id)
+                .customerId(1L)
+                .salonId(2L)
+                .startTime(START)
+                .endTime(START.plusHours(1))
+                .totalPrice(BigDecimal.TEN)
+                .status(BookingStatus.CONFIRMED)
+                .serviceIds(Set.of(3L))
+                .build();
+        return ArchivedBooking.of(booking, START.plusYears(1));
+    }
+}
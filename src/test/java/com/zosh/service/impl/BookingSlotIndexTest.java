@@ -0,0 +1,179 @@
+package com.zosh.service.impl;
+
+import com.zosh.domain.BookingStatus;
+import com.zosh.modal.Booking;
+import com.zosh.repository.BookingRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class BookingSlotIndexTest {
+
+    private static final Long SALON = 1L;
+    private static final LocalDate DAY = LocalDate.now().plusDays(1);
+
+    private BookingRepository repository;
+    private BookingSlotIndex index;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(BookingRepository.class);
+        index = new BookingSlotIndex(repository);
+        ReflectionTestUtils.setField(index, "ttlMinutes", 10L);
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void detectsOverlapsAndSharedEdges() {
+        givenDay(row(1L, "10:00", "11:00"));
+
+        assertThat(index.hasConflict(SALON, at("10:30"), at("11:30"))).isTrue();
+        assertThat(index.hasConflict(SALON, at("09:30"), at("10:30"))).isTrue();
+        assertThat(index.hasConflict(SALON, at("10:15"), at("10:45"))).isTrue();
+        assertThat(index.hasConflict(SALON, at("09:00"), at("12:00"))).isTrue();
+        // mismo inicio o mismo fin cuenta como conflicto aunque el intervalo sea vacío
+        assertThat(index.hasConflict(SALON, at("10:00"), at("10:00"))).isTrue();
+    }
+
+    @Test
+    void touchingEdgesAreFree() {
+        givenDay(row(1L, "10:00", "11:00"));
+
+        assertThat(index.hasConflict(SALON, at("11:00"), at("12:00"))).isFalse();
+        assertThat(index.hasConflict(SALON, at("09:00"), at("10:00"))).isFalse();
+        assertThat(index.freeWindows(SALON, DAY, LocalTime.of(9, 0), LocalTime.of(12, 0)))
+                .containsExactly(
+                        new BookingSlotIndex.FreeWindow(at("09:00"), at("10:00")),
+                        new BookingSlotIndex.FreeWindow(at("11:00"), at("12:00")));
+    }
+
+    @Test
+    void longestStillCoversRemainingSlotsAfterRemovals() {
+        givenDay(row(1L, "09:00", "13:00"), row(2L, "14:00", "14:30"));
+        index.hasConflict(SALON, at("15:00"), at("15:30"));
+
+        index.onBookingChanged(booking(1L, "09:00", "13:00", BookingStatus.CANCELLED));
+
+        assertThat(index.hasConflict(SALON, at("12:00"), at("12:30"))).isFalse();
+        assertThat(index.hasConflict(SALON, at("14:15"), at("14:45"))).isTrue();
+
+        // una reserva larga agregada después amplía la ventana de búsqueda
+        index.onBookingChanged(booking(3L, "15:00", "18:00", BookingStatus.PENDING));
+        assertThat(index.hasConflict(SALON, at("17:30"), at("18:30"))).isTrue();
+    }
+
+    @Test
+    void appliesChangesOnlyAfterCommit() {
+        givenDay();
+        index.hasConflict(SALON, at("10:00"), at("11:00"));
+
+        TransactionSynchronizationManager.initSynchronization();
+        index.onBookingChanged(booking(5L, "10:00", "11:00", BookingStatus.PENDING));
+        assertThat(index.hasConflict(SALON, at("10:00"), at("11:00"))).isFalse();
+
+        List<TransactionSynchronization> pending = TransactionSynchronizationManager.getSynchronizations();
+        pending.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        assertThat(index.hasConflict(SALON, at("10:00"), at("11:00"))).isFalse();
+
+        pending.forEach(TransactionSynchronization::afterCommit);
+        assertThat(index.hasConflict(SALON, at("10:00"), at("11:00"))).isTrue();
+    }
+
+    @Test
+    void changesBeforeTheDayIsLoadedAreLeftToTheLoad() {
+        index.onBookingChanged(booking(5L, "10:00", "11:00", BookingStatus.PENDING));
+        givenDay();
+
+        assertThat(index.hasConflict(SALON, at("10:00"), at("11:00"))).isFalse();
+    }
+
+    @Test
+    void loadsEachDayOnceUntilInvalidated() {
+        givenDay(row(1L, "10:00", "11:00"));
+
+        index.hasConflict(SALON, at("12:00"), at("13:00"));
+        index.hasConflict(SALON, at("14:00"), at("15:00"));
+        verify(repository, times(1)).findActiveBySalonIdAndStartTimeRange(eq(SALON), any(), any());
+
+        index.invalidate(SALON, DAY);
+        index.hasConflict(SALON, at("12:00"), at("13:00"));
+        verify(repository, times(2)).findActiveBySalonIdAndStartTimeRange(eq(SALON), any(), any());
+    }
+
+    @Test
+    void slowLoadDoesNotBlockOtherDays() throws Exception {
+        LocalDate otherDay = DAY.plusDays(1);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(repository.findActiveBySalonIdAndStartTimeRange(eq(SALON), eq(DAY.atStartOfDay()), any()))
+                .thenAnswer(inv -> {
+                    loading.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                    return List.of();
+                });
+        when(repository.findActiveBySalonIdAndStartTimeRange(eq(SALON), eq(otherDay.atStartOfDay()), any()))
+                .thenReturn(List.of());
+
+        CompletableFuture<Boolean> slow = CompletableFuture.supplyAsync(
+                () -> index.hasConflict(SALON, at("10:00"), at("11:00")));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<Boolean> other = CompletableFuture.supplyAsync(() -> index.hasConflict(
+                SALON, otherDay.atTime(10, 0), otherDay.atTime(11, 0)));
+        assertThat(other.get(2, TimeUnit.SECONDS)).isFalse();
+
+        release.countDown();
+        assertThat(slow.get(5, TimeUnit.SECONDS)).isFalse();
+    }
+
+    private void givenDay(BookingRepository.SlotRow... rows) {
+        when(repository.findActiveBySalonIdAndStartTimeRange(SALON, DAY.atStartOfDay(), DAY.plusDays(1).atStartOfDay()))
+                .thenReturn(List.of(rows));
+    }
+
+    private static LocalDateTime at(String time) {
+        return DAY.atTime(LocalTime.parse(time));
+    }
+
+    private static Booking booking(Long id, String start, String end, BookingStatus status) {
+        return Booking.builder().id(id).salonId(SALON).startTime(at(start)).endTime(at(end)).status(status).build();
+    }
+
+    private static BookingRepository.SlotRow row(Long id, String start, String end) {
+        return new BookingRepository.SlotRow() {
+            public Long getId() {
+                return id;
+            }
+
+            public LocalDateTime getStartTime() {
+                return at(start);
+            }
+
+            public LocalDateTime getEndTime() {
+                return at(end);
+            }
+        };
+    }
+}
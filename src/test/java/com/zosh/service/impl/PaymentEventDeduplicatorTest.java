@@ -0,0 +1,153 @@
+package com.zosh.service.impl;
+
+import com.zosh.modal.PaymentOrder;
+import com.zosh.modal.ProcessedPaymentEvent;
+import com.zosh.repository.ProcessedPaymentEventRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class PaymentEventDeduplicatorTest {
+
+    private ProcessedPaymentEventRepository repository;
+    private EntityManager entityManager;
+    private PaymentEventDeduplicator deduplicator;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ProcessedPaymentEventRepository.class);
+        entityManager = mock(EntityManager.class);
+        deduplicator = new PaymentEventDeduplicator(repository, entityManager,
+                mock(PlatformTransactionManager.class), 10_000);
+        when(repository.findExistingKeys(anyCollection())).thenReturn(List.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void keyPrefersOrderIdThenPaymentLinkThenBooking() {
+        assertThat(PaymentEventDeduplicator.keyOf(order(7L, "plink_1", 3L))).isEqualTo("order:7");
+        assertThat(PaymentEventDeduplicator.keyOf(order(null, "plink_1", 3L))).isEqualTo("link:plink_1");
+        assertThat(PaymentEventDeduplicator.keyOf(order(null, null, 3L))).isEqualTo("booking:3");
+    }
+
+    @Test
+    void dropsDuplicatesWithinTheBatchAndAlreadyProcessedKeys() {
+        PaymentOrder first = order(1L, null, 10L);
+        PaymentOrder redelivered = order(1L, null, 10L);
+        PaymentOrder processed = order(2L, null, 20L);
+        PaymentOrder fresh = order(3L, null, 30L);
+        List<String> queried = new ArrayList<>();
+        when(repository.findExistingKeys(anyCollection())).thenAnswer(inv -> {
+            queried.addAll(inv.<Collection<String>>getArgument(0));
+            return List.of("order:2");
+        });
+
+        List<PaymentOrder> result = deduplicator.filterNew(List.of(first, redelivered, processed, fresh));
+
+        assertThat(result).containsExactly(first, fresh);
+        assertThat(queried).containsExactly("order:1", "order:2", "order:3");
+    }
+
+    @Test
+    void largeBatchesQueryTheTableInChunksOracleAccepts() {
+        List<Integer> chunkSizes = new ArrayList<>();
+        when(repository.findExistingKeys(anyCollection())).thenAnswer(inv -> {
+            chunkSizes.add(inv.<Collection<String>>getArgument(0).size());
+            return List.of("order:1200");
+        });
+        List<PaymentOrder> orders = new ArrayList<>();
+        for (long id = 1; id <= 1200; id++) {
+            orders.add(order(id, null, id));
+        }
+
+        List<PaymentOrder> result = deduplicator.filterNew(orders);
+
+        assertThat(chunkSizes).containsExactly(500, 500, 200);
+        assertThat(result).hasSize(1199);
+    }
+
+    @Test
+    void purgeDeletesRowsOlderThanRetention() {
+        ReflectionTestUtils.setField(deduplicator, "retentionDays", 30L);
+
+        deduplicator.purgeProcessed();
+
+        ArgumentCaptor<LocalDateTime> before = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(repository).deleteProcessedBefore(before.capture());
+        assertThat(before.getValue()).isBetween(LocalDateTime.now().minusDays(30).minusMinutes(1),
+                LocalDateTime.now().minusDays(30));
+    }
+
+    @Test
+    void keysFoundInTheTableAreServedFromMemoryNextTime() {
+        when(repository.findExistingKeys(anyCollection())).thenReturn(List.of("order:2"));
+        deduplicator.filterNew(List.of(order(2L, null, 20L)));
+
+        assertThat(deduplicator.filterNew(List.of(order(2L, null, 20L)))).isEmpty();
+        verify(repository, times(1)).findExistingKeys(anyCollection());
+    }
+
+    @Test
+    void markProcessedPersistsOneRowPerOrder() {
+        deduplicator.markProcessed(List.of(order(1L, null, 10L), order(null, "plink_2", 20L)));
+
+        ArgumentCaptor<ProcessedPaymentEvent> events = ArgumentCaptor.forClass(ProcessedPaymentEvent.class);
+        verify(entityManager, times(2)).persist(events.capture());
+        assertThat(events.getAllValues()).extracting(ProcessedPaymentEvent::getEventKey)
+                .containsExactly("order:1", "link:plink_2");
+        assertThat(events.getAllValues()).extracting(ProcessedPaymentEvent::getBookingId)
+                .containsExactly(10L, 20L);
+    }
+
+    @Test
+    void rememberedKeysOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        deduplicator.markProcessed(List.of(order(1L, null, 10L)));
+
+        assertThat(deduplicator.filterNew(List.of(order(1L, null, 10L)))).hasSize(1);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertThat(deduplicator.filterNew(List.of(order(1L, null, 10L)))).isEmpty();
+    }
+
+    @Test
+    void rolledBackOrdersAreNotRemembered() {
+        TransactionSynchronizationManager.initSynchronization();
+        deduplicator.markProcessed(List.of(order(1L, null, 10L)));
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertThat(deduplicator.filterNew(List.of(order(1L, null, 10L)))).hasSize(1);
+    }
+
+    private static PaymentOrder order(Long id, String paymentLinkId, Long bookingId) {
+        PaymentOrder order = new PaymentOrder();
+        order.setId(id);
+        order.setPaymentLinkId(paymentLinkId);
+        order.setBookingId(bookingId);
+        return order;
+    }
+}
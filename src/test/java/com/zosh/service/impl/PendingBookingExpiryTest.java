@@ -0,0 +1,50 @@
+package com.zosh.service.impl;
+
+import com.zosh.metrics.BookingMetrics;
+import com.zosh.service.BookingService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class PendingBookingExpiryTest {
+
+    @Test
+    void expiresBatchesUntilNoneLeftAndCountsThem() {
+        BookingService bookingService = mock(BookingService.class);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PendingBookingExpiry expiry = new PendingBookingExpiry(bookingService, new BookingMetrics(registry));
+        ReflectionTestUtils.setField(expiry, "pendingTtlMinutes", 30L);
+        ReflectionTestUtils.setField(expiry, "batchSize", 2);
+        when(bookingService.expirePendingBookings(any(LocalDateTime.class), eq(2))).thenReturn(2, 1, 0);
+
+        LocalDateTime before = LocalDateTime.now().minusMinutes(30);
+        expiry.expireStalePending();
+        LocalDateTime after = LocalDateTime.now().minusMinutes(30);
+
+        ArgumentCaptor<LocalDateTime> cutoffs = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(bookingService, times(3)).expirePendingBookings(cutoffs.capture(), eq(2));
+        assertThat(cutoffs.getAllValues()).containsOnly(cutoffs.getValue());
+        assertThat(cutoffs.getValue()).isBetween(before, after);
+        assertThat(registry.counter("booking.pending.expired").count()).isEqualTo(3.0);
+    }
+
+    @Test
+    void stopsAfterOneCallWhenNothingExpired() {
+        BookingService bookingService = mock(BookingService.class);
+        PendingBookingExpiry expiry = new PendingBookingExpiry(bookingService,
+                new BookingMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(expiry, "batchSize", 200);
+
+        expiry.expireStalePending();
+
+        verify(bookingService, times(1)).expirePendingBookings(any(LocalDateTime.class), eq(200));
+    }
+}
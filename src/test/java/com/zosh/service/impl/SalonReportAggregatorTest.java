@@ -0,0 +1,126 @@
+package com.zosh.service.impl;
+
+import com.zosh.domain.BookingStatus;
+import com.zosh.modal.Booking;
+import com.zosh.modal.SalonReportAggregate;
+import com.zosh.repository.ArchivedBookingRepository;
+import com.zosh.repository.BookingRepository;
+import com.zosh.repository.SalonReportAggregateRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class SalonReportAggregatorTest {
+
+    private BookingRepository bookingRepository;
+    private ArchivedBookingRepository archivedRepository;
+    private SalonReportAggregateRepository aggregateRepository;
+    private SalonReportAggregator aggregator;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository = mock(BookingRepository.class);
+        archivedRepository = mock(ArchivedBookingRepository.class);
+        aggregateRepository = mock(SalonReportAggregateRepository.class);
+        aggregator = new SalonReportAggregator(bookingRepository, archivedRepository,
+                aggregateRepository, mock(PlatformTransactionManager.class));
+        when(aggregateRepository.applyDelta(anyLong(), any(), anyLong(), anyLong(), any())).thenReturn(1);
+    }
+
+    @Test
+    void batchCancellationAppliesOneDeltaPerSalon() {
+        aggregator.onStatusChanged(List.of(
+                cancelled(1L, "10.00"), cancelled(1L, "15.50"), cancelled(2L, "20.00")), BookingStatus.PENDING);
+
+        verify(aggregateRepository).applyDelta(1L, BigDecimal.ZERO, 0, 2, new BigDecimal("25.50"));
+        verify(aggregateRepository).applyDelta(2L, BigDecimal.ZERO, 0, 1, new BigDecimal("20.00"));
+        verifyNoMoreInteractions(aggregateRepository);
+    }
+
+    @Test
+    void batchWithoutCancellationChangeAppliesNothing() {
+        Booking confirmed = cancelled(1L, "10.00");
+        confirmed.setStatus(BookingStatus.CONFIRMED);
+
+        aggregator.onStatusChanged(List.of(confirmed), BookingStatus.PENDING);
+
+        verify(aggregateRepository, never()).applyDelta(anyLong(), any(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void reactivatedBatchSubtractsRefund() {
+        Booking reactivated = cancelled(1L, "10.00");
+        reactivated.setStatus(BookingStatus.PENDING);
+
+        aggregator.onStatusChanged(List.of(reactivated), BookingStatus.CANCELLED);
+
+        verify(aggregateRepository).applyDelta(eq(1L), eq(BigDecimal.ZERO), eq(0L), eq(-1L),
+                eq(new BigDecimal("-10.00")));
+    }
+
+    @Test
+    void reconcileLocksRowBeforeSummingAndFixesItInPlace() {
+        SalonReportAggregate current = aggregate(3L, "30.00");
+        when(aggregateRepository.lock(1L)).thenReturn(Optional.of(current));
+        stubTotals(4L, "40.00");
+
+        assertThat(aggregator.reconcile(1L)).isTrue();
+
+        InOrder order = inOrder(aggregateRepository, bookingRepository);
+        order.verify(aggregateRepository).lock(1L);
+        order.verify(bookingRepository).sumTotalsBySalonId(1L);
+        assertThat(current.getTotalBookings()).isEqualTo(4L);
+        assertThat(current.getTotalEarnings()).isEqualByComparingTo("40.00");
+        verify(aggregateRepository, never()).save(any());
+    }
+
+    @Test
+    void reconcileLeavesMatchingRowAlone() {
+        SalonReportAggregate current = aggregate(4L, "40.00");
+        when(aggregateRepository.lock(1L)).thenReturn(Optional.of(current));
+        stubTotals(4L, "40.00");
+
+        assertThat(aggregator.reconcile(1L)).isFalse();
+
+        verify(aggregateRepository, never()).save(any());
+    }
+
+    private void stubTotals(Long bookings, String earnings) {
+        BookingRepository.SalonTotals live = mock(BookingRepository.SalonTotals.class);
+        when(live.getTotalBookings()).thenReturn(bookings);
+        when(live.getTotalEarnings()).thenReturn(new BigDecimal(earnings));
+        when(bookingRepository.sumTotalsBySalonId(1L)).thenReturn(live);
+        when(archivedRepository.sumTotalsBySalonId(1L)).thenReturn(mock(BookingRepository.SalonTotals.class));
+    }
+
+    private static SalonReportAggregate aggregate(Long bookings, String earnings) {
+        return SalonReportAggregate.builder()
+                .salonId(1L)
+                .totalBookings(bookings)
+                .totalEarnings(new BigDecimal(earnings))
+                .cancelledBookings(0L)
+                .totalRefund(BigDecimal.ZERO)
+                .build();
+    }
+
+    private static Booking cancelled(Long salonId, String price) {
+        return Booking.builder()
+                .salonId(salonId)
+                .startTime(LocalDateTime.of(2024, 3, 4, 10, 0))
+                .totalPrice(new BigDecimal(price))
+                .status(BookingStatus.CANCELLED)
+                .build();
+    }
+}